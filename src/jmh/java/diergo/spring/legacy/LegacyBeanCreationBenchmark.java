@@ -0,0 +1,74 @@
+package diergo.spring.legacy;
+
+import static diergo.spring.legacy.MemberPredicates.named;
+import static org.springframework.beans.factory.config.BeanDefinition.SCOPE_PROTOTYPE;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+/**
+ * Creating legacy prototypes registered by a static factory method and by a factory bean method,
+ * compared to calling the factory method directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class LegacyBeanCreationBenchmark {
+
+    private DefaultListableBeanFactory beanFactory;
+
+    @Setup
+    public void registerBeans() {
+        beanFactory = new DefaultListableBeanFactory();
+        RootBeanDefinition staticMethod = new RootBeanDefinition(Prototype.class);
+        new LegacyBeanMethodFilter(SCOPE_PROTOTYPE, named("create")).customize(staticMethod);
+        beanFactory.registerBeanDefinition("staticMethod", staticMethod);
+        beanFactory.registerBeanDefinition("factory", new RootBeanDefinition(Factory.class));
+        new LegacyFactoryBeanScanner(() -> Factory.class, named("createPrototype"), SCOPE_PROTOTYPE)
+                .apply(beanFactory)
+                .forEach(bd -> beanFactory.registerBeanDefinition("factoryMethod", bd));
+    }
+
+    @Benchmark
+    public Object staticMethodPrototype() {
+        return beanFactory.getBean("staticMethod");
+    }
+
+    @Benchmark
+    public Object factoryMethodPrototype() {
+        return beanFactory.getBean("factoryMethod");
+    }
+
+    @Benchmark
+    public Object directCall() {
+        return Prototype.create();
+    }
+
+    public static class Prototype {
+
+        public static Prototype create() {
+            return new Prototype();
+        }
+    }
+
+    public static class Factory {
+
+        public Prototype createPrototype() {
+            return new Prototype();
+        }
+    }
+}
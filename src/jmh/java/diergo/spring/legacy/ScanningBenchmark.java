@@ -0,0 +1,58 @@
+package diergo.spring.legacy;
+
+import static diergo.spring.legacy.LegacyBeanRegistryPostProcessorBuilder.legacyPackages;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.SimpleBeanDefinitionRegistry;
+import org.springframework.core.env.StandardEnvironment;
+
+/**
+ * Scanning generated packages of legacy classes of growing size, half of them legacy singletons.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ScanningBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int size;
+
+    @Param({"sequential", "metadata", "parallel"})
+    String mode;
+
+    private LegacyBeanRegistryPostProcessor processor;
+
+    @Setup
+    public void createProcessor() {
+        LegacyBeanRegistryPostProcessorBuilder builder = legacyPackages("diergo.spring.legacy.bench.size" + size);
+        if ("metadata".equals(mode)) {
+            builder.metadataMatching();
+        } else if ("parallel".equals(mode)) {
+            builder.parallelScanning();
+        }
+        processor = (LegacyBeanRegistryPostProcessor) builder.build();
+        processor.setEnvironment(new StandardEnvironment());
+    }
+
+    @Benchmark
+    public BeanDefinitionRegistry postProcess() {
+        SimpleBeanDefinitionRegistry registry = new SimpleBeanDefinitionRegistry();
+        processor.postProcess(registry);
+        return registry;
+    }
+}
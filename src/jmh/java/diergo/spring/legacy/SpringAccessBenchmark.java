@@ -0,0 +1,119 @@
+package diergo.spring.legacy;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.GenericApplicationContext;
+
+/**
+ * Accessing Spring beans from legacy code before and after the context started, single and multi threaded.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SpringAccessBenchmark {
+
+    @Benchmark
+    public Target getSpringBeanBeforeStart(NotStarted state) {
+        return LegacySpringAccess.getSpringBean(Target.class);
+    }
+
+    @Benchmark
+    public Target getSpringBean(Started state) {
+        return LegacySpringAccess.getSpringBean(Target.class);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Target getSpringBeanConcurrently(Started state) {
+        return LegacySpringAccess.getSpringBean(Target.class);
+    }
+
+    @Benchmark
+    public int earlyProxyDispatch(Started state) {
+        return state.earlyProxy.getValue();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int earlyProxyDispatchConcurrently(Started state) {
+        return state.earlyProxy.getValue();
+    }
+
+    @Benchmark
+    public int handleDispatch(Started state) {
+        return state.handle.get().getValue();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int handleDispatchConcurrently(Started state) {
+        return state.handle.get().getValue();
+    }
+
+    @Benchmark
+    public int lookupDispatch(Started state) {
+        return LegacySpringAccess.getSpringBean(Target.class).getValue();
+    }
+
+    @Benchmark
+    public int directDispatch(Started state) {
+        return state.target.getValue();
+    }
+
+    @State(Scope.Benchmark)
+    public static class NotStarted {
+
+        @Setup
+        public void destroyContext() {
+            new LegacySpringAccess().destroy();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Started {
+
+        private GenericApplicationContext context;
+        Target earlyProxy;
+        LegacyBeanHandle<Target> handle;
+        Target target;
+
+        @Setup
+        public void startContext() {
+            new LegacySpringAccess().destroy();
+            earlyProxy = LegacySpringAccess.getSpringBean(Target.class);
+            handle = LegacySpringAccess.handle(Target.class);
+            context = new GenericApplicationContext();
+            context.registerBean(LegacySpringAccess.class);
+            context.registerBean(Target.class);
+            context.refresh();
+            target = context.getBean(Target.class);
+        }
+
+        @TearDown
+        public void closeContext() {
+            context.close();
+        }
+    }
+
+    public static class Target {
+
+        private int value = 42;
+
+        public int getValue() {
+            return value;
+        }
+    }
+}
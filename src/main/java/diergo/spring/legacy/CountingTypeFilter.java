@@ -0,0 +1,57 @@
+package diergo.spring.legacy;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.filter.TypeFilter;
+
+/**
+ * A type filter counting the classes evaluated and matched by another filter and the time spent matching.
+ * As filters are called for each class while scanning, the counts are recorded as startup step after the scan.
+ * Include filters short-circuit, so a filter evaluates the classes not matched by the filters before only. The
+ * classes scanned are recorded by the scan step of each base package.
+ *
+ * @see LegacyBeanRegistryPostProcessor
+ */
+final class CountingTypeFilter implements TypeFilter {
+
+    private final TypeFilter filter;
+    private final LongAdder evaluated = new LongAdder();
+    private final LongAdder matched = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+
+    CountingTypeFilter(TypeFilter filter) {
+        this.filter = filter;
+    }
+
+    @Override
+    public boolean match(MetadataReader metadataReader, MetadataReaderFactory metadataReaderFactory) throws IOException {
+        long start = System.nanoTime();
+        try {
+            boolean match = filter.match(metadataReader, metadataReaderFactory);
+            if (match) {
+                matched.increment();
+            }
+            return match;
+        } finally {
+            evaluated.increment();
+            nanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Record the counts as startup step. The step is started and ended at once, so its duration is meaningless:
+     * the time spent matching while scanning is tagged as {@code matchMillis} instead.
+     */
+    void record(ApplicationStartup applicationStartup) {
+        applicationStartup.start("diergo.spring.legacy.filter")
+                .tag("filter", filter.toString())
+                .tag("classesEvaluated", String.valueOf(evaluated.sum()))
+                .tag("classesMatched", String.valueOf(matched.sum()))
+                .tag("matchMillis", String.valueOf(TimeUnit.NANOSECONDS.toMillis(nanos.sum())))
+                .end();
+    }
+}
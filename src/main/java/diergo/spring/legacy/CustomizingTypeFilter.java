@@ -1,9 +1,14 @@
 package diergo.spring.legacy;
 
+import java.io.IOException;
 import java.lang.reflect.Member;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.ClassMetadata;
 import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
 import org.springframework.core.type.filter.TypeFilter;
@@ -19,6 +24,8 @@ import org.springframework.core.type.filter.TypeFilter;
 abstract class CustomizingTypeFilter<T extends Member> implements TypeFilter, SmartBeanDefinitionCustomizer {
 
     protected final Predicate<? super T> accessCheck;
+    private volatile LegacyScanCache cache;
+    private boolean metadataMatching;
 
     CustomizingTypeFilter(Predicate<? super T> accessCheck) {
         this.accessCheck = MemberPredicates.<T>visible()
@@ -26,9 +33,18 @@ abstract class CustomizingTypeFilter<T extends Member> implements TypeFilter, Sm
                 .and(accessCheck);
     }
 
+    /**
+     * Check the members of the class file first if enabled, so only classes with possible matches are loaded.
+     *
+     * @see #useMetadataMatching()
+     */
     @Override
     public boolean match(MetadataReader metadataReader, MetadataReaderFactory metadataReaderFactory) {
-        return getAccess(metadataReader.getClassMetadata().getClassName())
+        String className = metadataReader.getClassMetadata().getClassName();
+        if (metadataMatching && !mayMatch(className, metadataReader.getResource(), metadataReaderFactory)) {
+            return false;
+        }
+        return getAccess(className)
                 .isPresent();
     }
 
@@ -44,14 +60,92 @@ abstract class CustomizingTypeFilter<T extends Member> implements TypeFilter, Sm
                 .ifPresent(access -> customizeBeanDefinition(access, bd));
     }
 
+    /**
+     * Share resolved types and members while scanning, passing {@code null} stops caching.
+     */
+    void useCache(LegacyScanCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Whether the access check contains checks not created by member predicates, not identified by the description.
+     *
+     * @see MemberPredicates#isCustom(Predicate)
+     */
+    boolean isCustom() {
+        return MemberPredicates.isCustom(accessCheck);
+    }
+
+    /**
+     * Check members from class file metadata before loading the class.
+     */
+    void useMetadataMatching() {
+        this.metadataMatching = true;
+    }
+
+    private boolean mayMatch(String className, Resource classFile, MetadataReaderFactory metadataReaderFactory) {
+        LegacyScanCache scanCache = cache;
+        Optional<List<LegacyMemberSignature>> members = scanCache == null ? readMembers(classFile)
+                : scanCache.getMembers(className, name -> readMembers(classFile));
+        if (!members.isPresent()) {
+            return true;
+        }
+        Predicate<LegacyMemberSignature> signatureCheck = MemberPredicates.signatureCheck(accessCheck);
+        return members.get().stream()
+                .filter(this::isAccessKind)
+                .filter(signatureCheck)
+                .anyMatch(member -> member.hasBeanType()
+                        && isAssignable(member.getTypeName(), className, metadataReaderFactory));
+    }
+
     private Optional<T> getAccess(String className) {
-        return getType(className).flatMap(this::getAccess);
+        LegacyScanCache scanCache = cache;
+        if (scanCache == null) {
+            return getType(className).flatMap(this::getAccess);
+        }
+        return scanCache.getAccess(this, className, name -> scanCache.getType(name).flatMap(this::getAccess));
     }
 
     protected abstract Optional<T> getAccess(Class<?> type);
 
+    /**
+     * Whether the member read from class file metadata is of the kind of members accessed.
+     */
+    protected abstract boolean isAccessKind(LegacyMemberSignature member);
+
     protected abstract void customizeBeanDefinition(T access, BeanDefinition bd);
 
+    private static Optional<List<LegacyMemberSignature>> readMembers(Resource classFile) {
+        if (classFile == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(LegacyMemberSignature.read(classFile));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Check the type hierarchy from class file metadata. If some class file is not readable, assignability is assumed.
+     */
+    static boolean isAssignable(String typeName, String targetName, MetadataReaderFactory metadataReaderFactory) {
+        if (typeName.equals(targetName)) {
+            return true;
+        }
+        if (Object.class.getName().equals(typeName)) {
+            return false;
+        }
+        try {
+            ClassMetadata metadata = metadataReaderFactory.getMetadataReader(typeName).getClassMetadata();
+            return metadata.hasSuperClass() && isAssignable(metadata.getSuperClassName(), targetName, metadataReaderFactory)
+                    || Stream.of(metadata.getInterfaceNames())
+                    .anyMatch(name -> isAssignable(name, targetName, metadataReaderFactory));
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
     static Optional<Class<?>> getType(String className) {
         try {
             return Optional.of(Class.forName(className, false, CustomizingTypeFilter.class.getClassLoader()));
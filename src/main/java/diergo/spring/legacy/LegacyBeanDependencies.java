@@ -0,0 +1,200 @@
+package diergo.spring.legacy;
+
+import static java.util.Collections.emptySet;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Infers the dependencies of legacy singletons from their class files and adds them to the beans they depend on.
+ * A legacy singleton of a static field or static factory method depends on another one, if the static initializer,
+ * a constructor or the factory method of its class accesses a static member of the other bean class or creates an
+ * instance of it, as this initializes the other class. Methods of the same class called are followed.
+ * Dependencies closing a cycle are dropped, visiting the beans and their dependencies ordered by name.
+ *
+ * @see LegacyBeanRegistryPostProcessorBuilder#inferDependencies()
+ */
+final class LegacyBeanDependencies {
+
+    private final BeanDefinitionRegistry registry;
+    private final ResourceLoader resourceLoader;
+    private final Map<String, Set<String>> beansByClass = new HashMap<>();
+    private final Map<String, ClassCode> classes = new HashMap<>();
+
+    LegacyBeanDependencies(BeanDefinitionRegistry registry, ResourceLoader resourceLoader) {
+        this.registry = registry;
+        this.resourceLoader = resourceLoader;
+    }
+
+    /**
+     * Add the dependencies between the beans passed to their bean definitions.
+     */
+    void infer(Collection<String> beanNames) {
+        Map<String, String> classByBean = new TreeMap<>();
+        for (String beanName : beanNames) {
+            BeanDefinition bd = registry.getBeanDefinition(beanName);
+            String className = bd.getBeanClassName();
+            if (className != null && isStaticLegacySingleton(bd)) {
+                String internalName = ClassUtils.convertClassNameToResourcePath(className);
+                classByBean.put(beanName, internalName);
+                beansByClass.computeIfAbsent(internalName, name -> new TreeSet<>()).add(beanName);
+            }
+        }
+        Map<String, Set<String>> dependencies = new HashMap<>();
+        classByBean.forEach((beanName, internalName) -> {
+            BeanDefinition bd = registry.getBeanDefinition(beanName);
+            Set<String> dependsOn = new LinkedHashSet<>();
+            for (String initialized : getClassCode(internalName).initializedBy(bd.getFactoryMethodName())) {
+                beansByClass.getOrDefault(initialized, emptySet()).stream()
+                        .filter(dependency -> !dependency.equals(beanName))
+                        .filter(dependency -> !reaches(dependencies, dependency, beanName))
+                        .forEach(dependency -> {
+                            dependsOn.add(dependency);
+                            dependencies.computeIfAbsent(beanName, name -> new HashSet<>()).add(dependency);
+                        });
+            }
+            if (!dependsOn.isEmpty()) {
+                String[] declared = bd.getDependsOn();
+                if (declared != null) {
+                    dependsOn.addAll(Arrays.asList(declared));
+                }
+                bd.setDependsOn(dependsOn.toArray(new String[0]));
+            }
+        });
+    }
+
+    private static boolean isStaticLegacySingleton(BeanDefinition bd) {
+        return bd.isSingleton() && bd.getFactoryBeanName() == null
+                && (bd.getAttribute(LegacySingletonFieldFilter.FIELD_ATTRIBUTE) != null || bd.getFactoryMethodName() != null);
+    }
+
+    private static boolean reaches(Map<String, Set<String>> dependencies, String from, String to) {
+        Set<String> visited = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        pending.add(from);
+        while (!pending.isEmpty()) {
+            String current = pending.poll();
+            if (current.equals(to)) {
+                return true;
+            }
+            if (visited.add(current)) {
+                pending.addAll(dependencies.getOrDefault(current, emptySet()));
+            }
+        }
+        return false;
+    }
+
+    private ClassCode getClassCode(String internalName) {
+        return classes.computeIfAbsent(internalName, name -> {
+            Resource classFile = resourceLoader.getResource(ResourceLoader.CLASSPATH_URL_PREFIX + name + ".class");
+            try (InputStream in = classFile.getInputStream()) {
+                return ClassCode.read(in, name);
+            } catch (FileNotFoundException e) {
+                return new ClassCode(name);
+            } catch (IOException | IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new BeanDefinitionStoreException("Cannot read class file " + classFile, e);
+            }
+        });
+    }
+
+    /**
+     * The classes initialized and the methods of the same class called by each method of a class.
+     */
+    private static final class ClassCode {
+
+        private final String internalName;
+        private final Map<String, Set<String>> initializedByMethod = new HashMap<>();
+        private final Map<String, Set<String>> calledByMethod = new HashMap<>();
+        private final Map<String, Set<String>> methodsByName = new HashMap<>();
+
+        ClassCode(String internalName) {
+            this.internalName = internalName;
+        }
+
+        static ClassCode read(InputStream in, String internalName) throws IOException {
+            ClassCode code = new ClassCode(internalName);
+            new ClassReader(in).accept(new ClassVisitor(SpringAsmInfo.ASM_VERSION) {
+                @Override
+                public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                    String method = name + descriptor;
+                    code.methodsByName.computeIfAbsent(name, key -> new HashSet<>()).add(method);
+                    Set<String> initialized = code.initializedByMethod.computeIfAbsent(method, key -> new HashSet<>());
+                    Set<String> called = code.calledByMethod.computeIfAbsent(method, key -> new HashSet<>());
+                    return new MethodVisitor(SpringAsmInfo.ASM_VERSION) {
+                        @Override
+                        public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+                            if (opcode == Opcodes.GETSTATIC || opcode == Opcodes.PUTSTATIC) {
+                                initialized.add(owner);
+                            }
+                        }
+
+                        @Override
+                        public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+                            if (opcode == Opcodes.INVOKESTATIC) {
+                                initialized.add(owner);
+                            }
+                            if (owner.equals(internalName)) {
+                                called.add(name + descriptor);
+                            }
+                        }
+
+                        @Override
+                        public void visitTypeInsn(int opcode, String type) {
+                            if (opcode == Opcodes.NEW) {
+                                initialized.add(type);
+                            }
+                        }
+                    };
+                }
+            }, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+            return code;
+        }
+
+        /**
+         * Get the classes initialized by the static initializer, the constructors and the factory method, following
+         * the methods of the same class called.
+         */
+        Set<String> initializedBy(String factoryMethodName) {
+            Deque<String> pending = new ArrayDeque<>();
+            pending.addAll(methodsByName.getOrDefault("<clinit>", emptySet()));
+            pending.addAll(methodsByName.getOrDefault("<init>", emptySet()));
+            if (factoryMethodName != null) {
+                pending.addAll(methodsByName.getOrDefault(factoryMethodName, emptySet()));
+            }
+            Set<String> visited = new HashSet<>();
+            Set<String> initialized = new TreeSet<>();
+            while (!pending.isEmpty()) {
+                String method = pending.poll();
+                if (visited.add(method)) {
+                    initialized.addAll(initializedByMethod.getOrDefault(method, emptySet()));
+                    pending.addAll(calledByMethod.getOrDefault(method, emptySet()));
+                }
+            }
+            initialized.remove(internalName);
+            return initialized;
+        }
+    }
+}
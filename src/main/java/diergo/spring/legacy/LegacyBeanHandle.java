@@ -0,0 +1,64 @@
+package diergo.spring.legacy;
+
+import java.util.function.Supplier;
+
+/**
+ * A handle of a unique Spring bean to be kept by legacy code, e.g. in a static final field.
+ * Once the context has been refreshed, a singleton is pinned and getting it is a single volatile read.
+ * The singleton is released when its context is refreshed again or destroyed and resolved again on the next call.
+ * Other scopes are always retrieved from the context.
+ *
+ * @see LegacySpringAccess#handle(Class)
+ * @since 1.1
+ */
+public final class LegacyBeanHandle<T> implements Supplier<T> {
+
+    private final Class<T> type;
+    private final ClassLoader classLoader;
+    private volatile T bean;
+    private volatile Object source;
+
+    LegacyBeanHandle(Class<T> type, ClassLoader classLoader) {
+        this.type = type;
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * Get the bean, failing if the context of the handle has not been started.
+     */
+    @Override
+    public T get() {
+        T resolved = bean;
+        return resolved == null ? LegacySpringAccess.resolve(this) : resolved;
+    }
+
+    Class<T> getType() {
+        return type;
+    }
+
+    ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    /**
+     * Keep the singleton of the source passed.
+     */
+    synchronized void pin(T singleton, Object source) {
+        this.source = source;
+        this.bean = singleton;
+    }
+
+    /**
+     * Forget the singleton if it has been retrieved from the source passed.
+     */
+    synchronized void release(Object source) {
+        if (this.source == source) {
+            this.bean = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "handle of " + type.getName();
+    }
+}
@@ -0,0 +1,219 @@
+package diergo.spring.legacy;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanNameGenerator;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Index of legacy beans found by scanning at build time, so scanning can be skipped at runtime.
+ * The index is stored in {@value #INDEX_LOCATION} and can be present in multiple JAR files.
+ * It contains a section for each post processor scanned, starting with its {@link #key(String[], List, BeanNameGenerator)
+ * configuration} in brackets, followed by a line for each bean with tab separated bean name, bean class name, member
+ * kind, member name and scope.
+ *
+ * @see LegacyBeanIndexer
+ * @see LegacyBeanRegistryPostProcessor
+ */
+final class LegacyBeanIndex {
+
+    /**
+     * The location of the index.
+     */
+    static final String INDEX_LOCATION = "META-INF/spring-legacy.index";
+
+    /**
+     * Property to ignore any index and always scan, e.g. if the index is outdated.
+     */
+    static final String IGNORE_INDEX_PROPERTY = "spring.legacy.index.ignore";
+
+    private static final ConcurrentMap<ClassLoader, LegacyBeanIndex> CACHE = new ConcurrentReferenceHashMap<>();
+
+    private final Map<String, List<Entry>> sections;
+
+    LegacyBeanIndex(Map<String, List<Entry>> sections) {
+        this.sections = sections;
+    }
+
+    /**
+     * Load and merge all indexes available using the class loader.
+     */
+    static LegacyBeanIndex load(ClassLoader classLoader) {
+        return CACHE.computeIfAbsent(classLoader, LegacyBeanIndex::doLoad);
+    }
+
+    private static LegacyBeanIndex doLoad(ClassLoader classLoader) {
+        Map<String, List<Entry>> sections = new LinkedHashMap<>();
+        try {
+            Enumeration<URL> urls = classLoader.getResources(INDEX_LOCATION);
+            while (urls.hasMoreElements()) {
+                read(urls.nextElement(), sections);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalStateException("Unable to load legacy bean indexes from location [" + INDEX_LOCATION + "]", e);
+        }
+        return new LegacyBeanIndex(sections);
+    }
+
+    private static void read(URL url, Map<String, List<Entry>> sections) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), UTF_8))) {
+            List<Entry> section = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                if (line.startsWith("[") && line.endsWith("]")) {
+                    section = sections.computeIfAbsent(line.substring(1, line.length() - 1), key -> new ArrayList<>());
+                } else if (section == null) {
+                    throw new IllegalArgumentException("Legacy bean outside of base packages section in " + url + ": " + line);
+                } else {
+                    section.add(Entry.parse(line));
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the beans indexed for exactly the post processor configuration passed.
+     *
+     * @return the entries or nothing if the configuration has not been indexed
+     * @see #key(String[], List, BeanNameGenerator)
+     */
+    Optional<List<Entry>> getEntries(String key) {
+        return Optional.ofNullable(sections.get(key))
+                .map(Collections::unmodifiableList);
+    }
+
+    void write(Writer out) throws IOException {
+        out.write("# legacy beans indexed by post processor configuration\n");
+        for (Map.Entry<String, List<Entry>> section : sections.entrySet()) {
+            out.write('[' + section.getKey() + "]\n");
+            for (Entry entry : section.getValue()) {
+                out.write(entry.format() + '\n');
+            }
+        }
+    }
+
+    static String key(String... basePackages) {
+        return String.join(",", basePackages);
+    }
+
+    /**
+     * Identify the configuration of a post processor by the base packages, the descriptions of the type filters and
+     * the type of the bean name generator. The key is the same in every JVM, checks not created by
+     * {@link MemberPredicates} are identified by their position only.
+     */
+    static String key(String[] basePackages, List<?> filters, BeanNameGenerator beanNameGenerator) {
+        StringJoiner key = new StringJoiner(" | ");
+        key.add(key(basePackages));
+        filters.forEach(filter -> key.add(filter.toString()));
+        String generatorName = beanNameGenerator.getClass().getName();
+        int lambda = generatorName.indexOf("$$Lambda");
+        return key.add("named by " + (lambda < 0 ? generatorName : generatorName.substring(0, lambda))).toString();
+    }
+
+    /**
+     * A legacy bean indexed.
+     */
+    static final class Entry {
+
+        private static final String FIELD = "field";
+        private static final String METHOD = "method";
+
+        private final String beanName;
+        private final String className;
+        private final boolean field;
+        private final String member;
+        private final String scope;
+
+        Entry(String beanName, String className, boolean field, String member, String scope) {
+            this.beanName = beanName;
+            this.className = className;
+            this.field = field;
+            this.member = member;
+            this.scope = scope;
+        }
+
+        /**
+         * Create an entry from a bean definition customized by one of the legacy type filters.
+         */
+        static Entry of(String beanName, BeanDefinition bd) {
+            String factoryMethod = bd.getFactoryMethodName();
+            if (factoryMethod != null) {
+                return new Entry(beanName, bd.getBeanClassName(), false, factoryMethod, bd.getScope());
+            }
+            Object field = bd.getAttribute(LegacySingletonFieldFilter.FIELD_ATTRIBUTE);
+            if (field == null) {
+                throw new IllegalArgumentException("Bean " + beanName + " is no legacy bean: " + bd);
+            }
+            return new Entry(beanName, bd.getBeanClassName(), true, field.toString(), bd.getScope());
+        }
+
+        static Entry parse(String line) {
+            String[] parts = line.split("\t");
+            if (parts.length != 5 || !(FIELD.equals(parts[2]) || METHOD.equals(parts[2]))) {
+                throw new IllegalArgumentException("Invalid legacy bean index entry: " + line);
+            }
+            return new Entry(parts[0], parts[1], FIELD.equals(parts[2]), parts[3], parts[4]);
+        }
+
+        String format() {
+            return String.join("\t", beanName, className, field ? FIELD : METHOD, member, scope);
+        }
+
+        static Entry read(DataInput in) throws IOException {
+            return new Entry(in.readUTF(), in.readUTF(), in.readBoolean(), in.readUTF(), in.readUTF());
+        }
+
+        void write(DataOutput out) throws IOException {
+            out.writeUTF(beanName);
+            out.writeUTF(className);
+            out.writeBoolean(field);
+            out.writeUTF(member);
+            out.writeUTF(scope);
+        }
+
+        String getBeanName() {
+            return beanName;
+        }
+
+        /**
+         * Create a bean definition like the legacy type filters customize scanned ones.
+         */
+        AbstractBeanDefinition toBeanDefinition() {
+            GenericBeanDefinition bd = new GenericBeanDefinition();
+            bd.setBeanClassName(className);
+            if (field) {
+                LegacySingletonFieldFilter.customizeBeanDefinition(bd, member);
+            } else {
+                LegacyBeanMethodFilter.customizeBeanDefinition(bd, scope, member);
+            }
+            return bd;
+        }
+
+        @Override
+        public String toString() {
+            return format();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package diergo.spring.legacy;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Creates an index of legacy beans at build time, so the post processor does not need to scan the class path
+ * at runtime. If no index is found for the configuration of a post processor, it falls back to scanning.
+ * The index has to be recreated whenever legacy code or the post processor configuration changes. Post processors with
+ * the same base packages, type filters and bean naming cannot be indexed together, as custom checks are identified by
+ * their position only.
+ * <p>
+ * Call {@link #main(String...)} with the resources output directory followed by static methods creating the post
+ * processors as {@code fully.qualified.ClassName#methodName}, e.g. using a Gradle task:
+ * <pre>
+ * tasks.register('legacyBeanIndex', JavaExec) {
+ *     dependsOn classes
+ *     classpath = sourceSets.main.runtimeClasspath
+ *     mainClass = 'diergo.spring.legacy.LegacyBeanIndexer'
+ *     args sourceSets.main.output.resourcesDir, 'example.spring.SpringConfig#legacySingletons'
+ * }
+ * jar.dependsOn legacyBeanIndex
+ * </pre>
+ *
+ * @see LegacyBeanRegistryPostProcessorBuilder
+ * @since 1.1
+ */
+public final class LegacyBeanIndexer {
+
+    private LegacyBeanIndexer() {
+    }
+
+    /**
+     * Write the index of legacy beans found by the post processors to the output directory.
+     *
+     * @param args the output directory followed by at least one static method creating a post processor
+     */
+    public static void main(String... args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException(
+                    "Usage: LegacyBeanIndexer outputDirectory fully.qualified.ClassName#methodName...");
+        }
+        Map<String, List<LegacyBeanIndex.Entry>> sections = new LinkedHashMap<>();
+        for (int i = 1; i < args.length; ++i) {
+            LegacyBeanRegistryPostProcessor processor = createProcessor(args[i]);
+            String key = processor.getIndexKey();
+            if (sections.containsKey(key)) {
+                throw new IllegalArgumentException("Post processor " + args[i] + " has the same configuration as another one: " + key);
+            }
+            sections.put(key, processor.createIndexEntries());
+        }
+        Path index = Paths.get(args[0]).resolve(LegacyBeanIndex.INDEX_LOCATION);
+        Path directory = index.getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        try (Writer out = Files.newBufferedWriter(index, UTF_8)) {
+            new LegacyBeanIndex(sections).write(out);
+        }
+    }
+
+    private static LegacyBeanRegistryPostProcessor createProcessor(String factoryMethod) {
+        int separator = factoryMethod.indexOf('#');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Missing method name in " + factoryMethod);
+        }
+        ClassLoader classLoader = LegacyBeanIndexer.class.getClassLoader();
+        Class<?> type = ClassUtils.resolveClassName(factoryMethod.substring(0, separator), classLoader);
+        Method method = ReflectionUtils.findMethod(type, factoryMethod.substring(separator + 1));
+        if (method == null) {
+            throw new IllegalArgumentException("Missing static method without parameters " + factoryMethod);
+        }
+        ReflectionUtils.makeAccessible(method);
+        Object processor = ReflectionUtils.invokeMethod(method, null);
+        if (!(processor instanceof LegacyBeanRegistryPostProcessor)) {
+            throw new IllegalArgumentException("Method " + factoryMethod + " does not create a legacy post processor");
+        }
+        LegacyBeanRegistryPostProcessor legacyProcessor = (LegacyBeanRegistryPostProcessor) processor;
+        legacyProcessor.setEnvironment(new StandardEnvironment());
+        return legacyProcessor;
+    }
+}
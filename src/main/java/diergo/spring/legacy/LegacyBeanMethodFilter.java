@@ -8,9 +8,12 @@ import static org.springframework.beans.factory.config.ConfigurableBeanFactory.S
 
 import java.lang.reflect.Method;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.util.ReflectionUtils;
 
 /**
  * A type filter creating bean definitions for methods without parameters returning a valid bean type.
@@ -32,19 +35,63 @@ class LegacyBeanMethodFilter extends CustomizingTypeFilter<Method> {
         this.scope = scope;
     }
 
+    /**
+     * Look up the methods by name if the check allows some names only, otherwise check all declared methods.
+     */
     @Override
     protected Optional<Method> getAccess(Class<?> type) {
-        return Stream.of(type.getDeclaredMethods())
+        return MemberPredicates.names(accessCheck)
+                .map(names -> names.stream()
+                        .map(name -> getDeclaredMethod(type, name))
+                        .filter(Optional::isPresent)
+                        .map(Optional::get))
+                .orElseGet(() -> Stream.of(type.getDeclaredMethods()))
                 .filter(returning(type).and(accessCheck))
                 .findFirst();
     }
 
+    @Override
+    protected boolean isAccessKind(LegacyMemberSignature member) {
+        return !member.isField();
+    }
+
     @Override
     protected void customizeBeanDefinition(Method access, BeanDefinition bd) {
+        customizeBeanDefinition(bd, scope, access.getName(), abd -> LegacyInstanceSupplier.ofStaticMethod(access));
+    }
+
+    @Override
+    public String toString() {
+        return scope + " methods " + accessCheck;
+    }
+
+    private static Optional<Method> getDeclaredMethod(Class<?> type, String name) {
+        try {
+            return Optional.of(type.getDeclaredMethod(name));
+        } catch (NoSuchMethodException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Customize the bean definition to create beans using the static factory method of the bean class.
+     * Abstract bean definitions get an instance supplier calling the method directly.
+     */
+    static void customizeBeanDefinition(BeanDefinition bd, String scope, String methodName) {
+        customizeBeanDefinition(bd, scope, methodName, abd -> LegacyInstanceSupplier.ofStaticMethod(abd, methodName,
+                type -> ReflectionUtils.findMethod(type, methodName)));
+    }
+
+    private static void customizeBeanDefinition(BeanDefinition bd, String scope, String methodName,
+                                                Function<AbstractBeanDefinition, LegacyInstanceSupplier> instanceSupplier) {
         bd.setScope(scope);
         if (SCOPE_SINGLETON.equals(scope)) {
             bd.setLazyInit(true);
         }
-        bd.setFactoryMethodName(access.getName());
+        bd.setFactoryMethodName(methodName);
+        if (bd instanceof AbstractBeanDefinition) {
+            AbstractBeanDefinition abd = (AbstractBeanDefinition) bd;
+            abd.setInstanceSupplier(instanceSupplier.apply(abd));
+        }
     }
 }
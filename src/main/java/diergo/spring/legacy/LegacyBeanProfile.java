@@ -0,0 +1,187 @@
+package diergo.spring.legacy;
+
+import static java.lang.invoke.MethodType.methodType;
+import static java.util.stream.Collectors.toList;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures the creation of the legacy beans registered by a post processor. For each bean the time to load and
+ * initialize the class accessed and the time to invoke the static field, static method or factory method are recorded
+ * separately, together with the bytes allocated if supported by the JVM and the thread creating the bean first.
+ * Get this bean from the context for a {@link #getReport() report} ranked by the total time spent.
+ *
+ * @see LegacyBeanRegistryPostProcessorBuilder#profileCreation()
+ * @since 1.1
+ */
+public final class LegacyBeanProfile {
+
+    private static final String ALLOCATION_MX_BEAN = "com.sun.management.ThreadMXBean";
+
+    private final Map<String, Creation> creations = new ConcurrentHashMap<>();
+    private final MethodHandle allocatedBytes = findAllocatedBytes(ManagementFactory.getThreadMXBean());
+
+    /**
+     * Get the creations of all beans created so far, the most expensive first.
+     */
+    public List<Creation> getReport() {
+        return creations.values().stream()
+                .sorted(Comparator.comparingLong(Creation::getTotalNanos).reversed()
+                        .thenComparing(Creation::getBeanName))
+                .collect(toList());
+    }
+
+    /**
+     * Get the bytes allocated by the current thread so far, {@code -1} if not measured.
+     */
+    long allocatedBytes() {
+        if (allocatedBytes == null) {
+            return -1;
+        }
+        try {
+            return (long) allocatedBytes.invokeExact();
+        } catch (Throwable e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Find the measurement of the bytes allocated by the current thread. The extension of the thread management bean
+     * is looked up reflectively, as it is not available on all JVMs. The measurement of the current thread is preferred
+     * over the one by thread id, which is available before Java 14 only.
+     *
+     * @return the handle taking no arguments, {@code null} if not supported or disabled
+     */
+    static MethodHandle findAllocatedBytes(ThreadMXBean threads) {
+        try {
+            Class<?> allocationMXBean = Class.forName(ALLOCATION_MX_BEAN);
+            if (!allocationMXBean.isInstance(threads)
+                    || !(Boolean) allocationMXBean.getMethod("isThreadAllocatedMemorySupported").invoke(threads)
+                    || !(Boolean) allocationMXBean.getMethod("isThreadAllocatedMemoryEnabled").invoke(threads)) {
+                return null;
+            }
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            try {
+                return lookup.findVirtual(allocationMXBean, "getCurrentThreadAllocatedBytes", methodType(long.class))
+                        .bindTo(threads);
+            } catch (NoSuchMethodException e) {
+                MethodHandle byThreadId = lookup.findVirtual(allocationMXBean, "getThreadAllocatedBytes",
+                        methodType(long.class, long.class)).bindTo(threads);
+                return MethodHandles.collectArguments(byThreadId, 0, MethodHandles.lookup()
+                        .findStatic(LegacyBeanProfile.class, "currentThreadId", methodType(long.class)));
+            }
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+            return null;
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static long currentThreadId() {
+        return Thread.currentThread().getId();
+    }
+
+    void record(String beanName, String description, long classInitNanos, long invocationNanos, long allocatedBytes) {
+        creations.computeIfAbsent(beanName, name -> new Creation(name, description, Thread.currentThread().getName()))
+                .add(classInitNanos, invocationNanos, allocatedBytes);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder("legacy bean creations:");
+        getReport().forEach(creation -> report.append(System.lineSeparator()).append(creation));
+        return report.toString();
+    }
+
+    /**
+     * The creations of a bean, summed up for beans created more than once.
+     */
+    public static final class Creation {
+
+        private final String beanName;
+        private final String description;
+        private final String threadName;
+        private long count;
+        private long classInitNanos;
+        private long invocationNanos;
+        private long allocatedBytes;
+
+        Creation(String beanName, String description, String threadName) {
+            this.beanName = beanName;
+            this.description = description;
+            this.threadName = threadName;
+        }
+
+        synchronized void add(long classInitNanos, long invocationNanos, long allocatedBytes) {
+            this.count++;
+            this.classInitNanos += classInitNanos;
+            this.invocationNanos += invocationNanos;
+            if (allocatedBytes < 0 || this.allocatedBytes < 0) {
+                this.allocatedBytes = -1;
+            } else {
+                this.allocatedBytes += allocatedBytes;
+            }
+        }
+
+        public String getBeanName() {
+            return beanName;
+        }
+
+        /**
+         * Get the static field or the method the bean is created by.
+         */
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * Get the name of the thread creating the bean first.
+         */
+        public String getThreadName() {
+            return threadName;
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        /**
+         * Get the time spent to load and initialize the class accessed.
+         */
+        public synchronized long getClassInitNanos() {
+            return classInitNanos;
+        }
+
+        /**
+         * Get the time spent to read the static field or invoke the method.
+         */
+        public synchronized long getInvocationNanos() {
+            return invocationNanos;
+        }
+
+        public synchronized long getTotalNanos() {
+            return classInitNanos + invocationNanos;
+        }
+
+        /**
+         * Get the bytes allocated by the creations, {@code -1} if not measured.
+         */
+        public synchronized long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return beanName + " by " + description + ": " + count + " created in "
+                    + (classInitNanos + invocationNanos) / 1_000 + " us (class init " + classInitNanos / 1_000
+                    + " us, invocation " + invocationNanos / 1_000 + " us), " + allocatedBytes
+                    + " bytes allocated, first on " + threadName;
+        }
+    }
+}
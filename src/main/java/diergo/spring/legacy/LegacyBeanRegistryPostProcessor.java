@@ -1,33 +1,71 @@
 package diergo.spring.legacy;
 
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptySet;
+import static java.util.stream.Collectors.toCollection;
+import static java.util.stream.Collectors.toList;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
-import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.ListableBeanFactory;
 import org.springframework.beans.factory.config.BeanDefinition;
-import org.springframework.beans.factory.config.BeanDefinitionCustomizer;
 import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.support.AbstractBeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionReaderUtils;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.BeanNameGenerator;
-import org.springframework.context.annotation.ClassPathBeanDefinitionScanner;
-import org.springframework.core.env.Environment;
-import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.beans.factory.support.SimpleBeanDefinitionRegistry;
+import org.springframework.context.ApplicationStartupAware;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternUtils;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
 
 /**
  * A post processor registering all legacy singletons as spring beans.
  *
  * @see LegacyBeanRegistryPostProcessorBuilder
  */
-class LegacyBeanRegistryPostProcessor extends AbstractRegistryPostProcessor {
+class LegacyBeanRegistryPostProcessor extends AbstractRegistryPostProcessor implements ApplicationStartupAware {
 
     private final String[] basePackages;
     private final List<CustomizingTypeFilter<?>> included;
-    private final List<Function<BeanDefinitionRegistry, Stream<BeanDefinition>>> factories;
+    private final List<LegacyFactoryBeanScanner> factories;
     private final BeanNameGenerator beanNameGenerator;
+    private Executor scanExecutor;
+    private LegacyScanResultCache scanResultCache;
+    private boolean incrementalScanning;
+    private boolean sharedScanning;
+    private Executor warmUpExecutor;
+    private boolean dependencyInference;
+    private boolean creationProfiling;
+    private LegacyScanCache scanCache;
+    private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
 
-    public LegacyBeanRegistryPostProcessor(List<CustomizingTypeFilter<?>> included, List<Function<BeanDefinitionRegistry, Stream<BeanDefinition>>> factories, BeanNameGenerator beanNameGenerator, int order, String... basePackages) {
+    public LegacyBeanRegistryPostProcessor(List<CustomizingTypeFilter<?>> included, List<LegacyFactoryBeanScanner> factories, BeanNameGenerator beanNameGenerator, int order, String... basePackages) {
         this.factories = factories;
         super.setOrder(order);
         this.basePackages = basePackages;
@@ -37,49 +75,510 @@ class LegacyBeanRegistryPostProcessor extends AbstractRegistryPostProcessor {
 
 
     /**
-     * Creates a {@link ClassPathBeanDefinitionScanner} with all type filters configured, scans the base packages
-     * and register bean definitions created. Afterwards register bean definitions created from factories configured.
+     * Registers the bean definitions indexed for the configuration if available.
+     * Otherwise registers the bean definitions found by another post processor with the same configuration in the
+     * JVM if shared, scanning together with all other post processors of the registry sharing their results.
+     * Otherwise registers the bean definitions of the scan result cache if configured and matching the class path,
+     * a cache not matching is replaced by the result of scanning.
+     * Without cache creates a {@link LegacyClassPathBeanDefinitionScanner} with all type filters configured, scans the base
+     * packages and register bean definitions created. Afterwards register bean definitions created from factories
+     * configured. Types and members resolved by the type filters are cached until the processing finished.
+     * Finally the dependencies between the legacy singletons are inferred, their creation is profiled and their warm-up
+     * is registered if enabled.
+     * All phases are recorded as startup steps, tagged with the classes visited and matched and the definitions
+     * registered. The type filters are recorded after the scan, tagged with the classes evaluated and matched and the
+     * time spent matching, as the duration of these steps is meaningless.
+     *
+     * @see LegacyBeanIndex
+     * @see LegacyScanResults
+     * @see LegacyScanResultCache
+     * @see #setApplicationStartup(ApplicationStartup)
      */
     @Override
     protected void postProcess(BeanDefinitionRegistry registry) {
-        ClassPathBeanDefinitionScanner scanner = new LegacyClassPathBeanDefinitionScanner(registry, false, environment,
-                this::customizeBeanDefinition);
-        scanner.setBeanNameGenerator(beanNameGenerator);
-        included.forEach(scanner::addIncludeFilter);
+        StartupStep step = applicationStartup.start("diergo.spring.legacy.post-process")
+                .tag("basePackages", LegacyBeanIndex.key(basePackages));
+        Set<String> existing = isTrackingRegistered() ? new HashSet<>(Arrays.asList(registry.getBeanDefinitionNames()))
+                : emptySet();
+        try {
+            withScanCache(() -> {
+                Optional<List<LegacyBeanIndex.Entry>> indexed = findIndexed(getClassLoader(registry));
+                step.tag("indexed", String.valueOf(indexed.isPresent()));
+                if (indexed.isPresent()) {
+                    registerIndexed(indexed.get(), "index", registry);
+                } else if (isSharingResults()) {
+                    registerShared(registry);
+                } else if (scanResultCache != null) {
+                    registerCached(registry);
+                } else {
+                    scan(registry, true);
+                }
+                registerFactoryBeans(registry, existing);
+            });
+            if (dependencyInference) {
+                inferDependencies(registry, existing);
+            }
+            if (creationProfiling) {
+                registerProfile(registry, existing);
+            }
+            if (warmUpExecutor != null) {
+                registerWarmUp(registry, existing);
+            }
+        } finally {
+            step.end();
+        }
+    }
+
+    /**
+     * Whether the beans registered by this post processing are needed afterwards.
+     */
+    private boolean isTrackingRegistered() {
+        return warmUpExecutor != null || dependencyInference || creationProfiling
+                || factories.stream().anyMatch(LegacyFactoryBeanScanner::isDiscovering);
+    }
+
+    /**
+     * Add the dependencies between the legacy singletons registered.
+     */
+    private void inferDependencies(BeanDefinitionRegistry registry, Set<String> existing) {
+        List<String> registered = Stream.of(registry.getBeanDefinitionNames())
+                .filter(beanName -> !existing.contains(beanName))
+                .collect(toList());
+        new LegacyBeanDependencies(registry, getResourcePatternResolver(registry)).infer(registered);
+    }
+
+    /**
+     * Let the instance suppliers of the legacy beans registered record their creations to a profile registered.
+     */
+    private void registerProfile(BeanDefinitionRegistry registry, Set<String> existing) {
+        LegacyBeanProfile profile = new LegacyBeanProfile();
+        Stream.of(registry.getBeanDefinitionNames())
+                .filter(beanName -> !existing.contains(beanName))
+                .forEach(beanName -> {
+                    BeanDefinition bd = registry.getBeanDefinition(beanName);
+                    if (bd instanceof AbstractBeanDefinition) {
+                        AbstractBeanDefinition abd = (AbstractBeanDefinition) bd;
+                        Supplier<?> instanceSupplier = abd.getInstanceSupplier();
+                        if (instanceSupplier instanceof LegacyInstanceSupplier) {
+                            abd.setInstanceSupplier(((LegacyInstanceSupplier) instanceSupplier).profiledBy(beanName, profile));
+                        }
+                    }
+                });
+        RootBeanDefinition bd = new RootBeanDefinition(LegacyBeanProfile.class, () -> profile);
+        bd.setRole(BeanDefinition.ROLE_INFRASTRUCTURE);
+        BeanDefinitionReaderUtils.registerWithGeneratedName(bd, registry);
+    }
+
+    /**
+     * Register the warm-up of the lazy singletons registered.
+     */
+    private void registerWarmUp(BeanDefinitionRegistry registry, Set<String> existing) {
+        Set<String> singletons = Stream.of(registry.getBeanDefinitionNames())
+                .filter(beanName -> !existing.contains(beanName))
+                .filter(beanName -> {
+                    BeanDefinition bd = registry.getBeanDefinition(beanName);
+                    return bd.isSingleton() && bd.isLazyInit();
+                })
+                .collect(toCollection(LinkedHashSet::new));
+        Executor executor = warmUpExecutor;
+        RootBeanDefinition bd = new RootBeanDefinition(LegacyBeanWarmUp.class, () -> new LegacyBeanWarmUp(executor, singletons));
+        bd.setRole(BeanDefinition.ROLE_INFRASTRUCTURE);
+        BeanDefinitionReaderUtils.registerWithGeneratedName(bd, registry);
+    }
+
+    @Override
+    public void setApplicationStartup(ApplicationStartup applicationStartup) {
+        this.applicationStartup = applicationStartup;
+    }
+
+    /**
+     * Register the beans shared in the JVM. If missing, use the scan result cache or scan together with all other post
+     * processors of the registry sharing their results, but not having them yet. Share the results afterwards.
+     */
+    private void registerShared(BeanDefinitionRegistry registry) {
+        ClassLoader classLoader = getClassLoader(registry);
+        String key = getIndexKey();
+        Optional<List<LegacyBeanIndex.Entry>> shared = LegacyScanResults.get(classLoader, key);
+        if (shared.isPresent()) {
+            registerIndexed(shared.get(), "shared", registry);
+        } else if (scanResultCache != null) {
+            LegacyScanResults.put(classLoader, key, registerCached(registry));
+        } else {
+            Map<String, BeanDefinition> scanned = new LegacyScanGroup(findSharingScan(registry, classLoader))
+                    .scan(createScanner(new SimpleBeanDefinitionRegistry(), false), classLoader);
+            register(scanned, "scan", registry);
+        }
+    }
+
+    private List<LegacyBeanRegistryPostProcessor> findSharingScan(BeanDefinitionRegistry registry, ClassLoader classLoader) {
+        List<LegacyBeanRegistryPostProcessor> group = new ArrayList<>();
+        group.add(this);
+        if (registry instanceof ListableBeanFactory) {
+            ((ListableBeanFactory) registry).getBeansOfType(LegacyBeanRegistryPostProcessor.class, true, false).values().stream()
+                    .filter(other -> other != this && other.isSharingScan(classLoader))
+                    .forEach(group::add);
+        }
+        return group;
+    }
+
+    private boolean isSharingScan(ClassLoader classLoader) {
+        return isSharingResults() && scanResultCache == null && !findIndexed(classLoader).isPresent()
+                && !LegacyScanResults.get(classLoader, getIndexKey()).isPresent();
+    }
+
+    /**
+     * Whether the results are shared. Type filters with custom checks are not identified by their description, so
+     * their results are never shared.
+     */
+    private boolean isSharingResults() {
+        return sharedScanning && included.stream().noneMatch(CustomizingTypeFilter::isCustom);
+    }
+
+    private List<LegacyBeanIndex.Entry> registerCached(BeanDefinitionRegistry registry) {
+        Optional<String> fingerprint = scanResultCache.fingerprint(getResourcePatternResolver(registry), basePackages,
+                getIndexKey());
+        Optional<List<LegacyBeanIndex.Entry>> cached = fingerprint.flatMap(scanResultCache::load);
+        if (cached.isPresent()) {
+            registerIndexed(cached.get(), "cache", registry);
+            return cached.get();
+        }
+        Map<String, BeanDefinition> scanned = scanBeanDefinitions();
+        List<LegacyBeanIndex.Entry> entries = createIndexEntries(scanned);
+        fingerprint.ifPresent(value -> scanResultCache.save(value, entries));
+        register(scanned, "scan", registry);
+        return entries;
+    }
+
+    private void registerIndexed(List<LegacyBeanIndex.Entry> indexed, String source, BeanDefinitionRegistry registry) {
+        Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<>();
+        indexed.forEach(entry -> beanDefinitions.put(entry.getBeanName(), entry.toBeanDefinition()));
+        register(beanDefinitions, source, registry);
+    }
+
+    /**
+     * Register the bean definitions created from the source passed. Scanned ones are registered as they are, with the
+     * target types resolved while scanning, like registered by a scan without sharing or caching the results.
+     * Names already registered are checked like a scanner does: the same legacy bean or a bean registered otherwise is
+     * kept, another legacy bean of the same name is a conflict.
+     */
+    private void register(Map<String, BeanDefinition> beanDefinitions, String source, BeanDefinitionRegistry registry) {
+        StartupStep step = applicationStartup.start("diergo.spring.legacy.register")
+                .tag("source", source);
+        try {
+            AtomicLong registered = new AtomicLong();
+            beanDefinitions.entrySet().stream()
+                    .filter(named -> !isRegistered(named.getKey(), named.getValue(), source, registry))
+                    .forEach(named -> {
+                        registry.registerBeanDefinition(named.getKey(), named.getValue());
+                        registered.incrementAndGet();
+                    });
+            step.tag("definitionsRegistered", registered.toString());
+        } finally {
+            step.end();
+        }
+    }
+
+    private static boolean isRegistered(String beanName, BeanDefinition bd, String source, BeanDefinitionRegistry registry) {
+        if (!registry.containsBeanDefinition(beanName)) {
+            return false;
+        }
+        BeanDefinition existing = registry.getBeanDefinition(beanName);
+        Supplier<?> instanceSupplier = existing instanceof AbstractBeanDefinition
+                ? ((AbstractBeanDefinition) existing).getInstanceSupplier() : null;
+        if (!(instanceSupplier instanceof LegacyInstanceSupplier)
+                || Objects.equals(bd.getBeanClassName(), existing.getBeanClassName())
+                && Objects.equals(bd.getFactoryBeanName(), existing.getFactoryBeanName())
+                && Objects.equals(bd.getFactoryMethodName(), existing.getFactoryMethodName())
+                && Objects.equals(bd.getAttribute(LegacySingletonFieldFilter.FIELD_ATTRIBUTE),
+                existing.getAttribute(LegacySingletonFieldFilter.FIELD_ATTRIBUTE))) {
+            return true;
+        }
+        throw new BeanDefinitionStoreException("Legacy bean name '" + beanName + "' for bean class ["
+                + bd.getBeanClassName() + "] from " + source + " conflicts with existing, non-compatible bean definition"
+                + " of same name and class [" + existing.getBeanClassName() + "]");
+    }
+
+    /**
+     * Scan the base packages and record the counts of the type filters afterwards.
+     */
+    private void scan(BeanDefinitionRegistry registry, boolean includeAnnotationConfig) {
+        List<CountingTypeFilter> counted = included.stream()
+                .map(CountingTypeFilter::new)
+                .collect(toList());
+        LegacyClassPathBeanDefinitionScanner scanner = createScanner(registry, includeAnnotationConfig);
+        counted.forEach(scanner::addIncludeFilter);
         scanner.scan(basePackages);
-        factories.stream()
-                .flatMap(factory -> factory.apply(registry))
-                .map(bd -> new BeanDefinitionHolder(bd, beanNameGenerator.generateBeanName(bd, registry)))
-                .filter(bdh -> !registry.containsBeanDefinition(bdh.getBeanName()))
-                .forEach(bdh -> BeanDefinitionReaderUtils.registerBeanDefinition(bdh, registry));
+        counted.forEach(filter -> filter.record(applicationStartup));
     }
 
-    private void customizeBeanDefinition(BeanDefinition bd) {
-        included.stream()
-                .filter(included -> included.supports(bd))
-                .findFirst()
-                .ifPresent(included -> included.customize(bd));
+    /**
+     * Register the bean definitions created by all factories. The factory beans are looked up in an index of the
+     * registry created once, beans registered are added to allow factory beans created by other factories.
+     * All missing factory beans are reported together. Discovered factory beans are taken from the beans registered
+     * before by this post processing, using the types and class file members resolved while scanning.
+     */
+    private void registerFactoryBeans(BeanDefinitionRegistry registry, Set<String> existing) {
+        if (factories.isEmpty()) {
+            return;
+        }
+        StartupStep step = applicationStartup.start("diergo.spring.legacy.register")
+                .tag("source", "factories");
+        try {
+            LegacyFactoryBeanIndex factoryBeans = new LegacyFactoryBeanIndex(registry);
+            Map<String, Class<?>> types = factories.stream().anyMatch(LegacyFactoryBeanScanner::isDiscovering)
+                    ? getRegisteredTypes(registry, existing) : emptyMap();
+            LegacyScanCache cache = scanCache;
+            Function<String, Optional<List<LegacyMemberSignature>>> members = className -> cache == null
+                    ? Optional.empty() : cache.findMembers(className);
+            long registered = 0;
+            for (LegacyFactoryBeanScanner factory : factories) {
+                registered += registerFactoryBeans(factory, factory.isDiscovering()
+                        ? factory.discover(types, members, registry) : factory.apply(factoryBeans), factoryBeans, registry);
+            }
+            step.tag("definitionsRegistered", String.valueOf(registered));
+            factoryBeans.checkMissing();
+        } finally {
+            step.end();
+        }
+    }
+
+    private long registerFactoryBeans(LegacyFactoryBeanScanner factory, Stream<BeanDefinition> beanDefinitions,
+                                      LegacyFactoryBeanIndex factoryBeans, BeanDefinitionRegistry registry) {
+        StartupStep step = applicationStartup.start("diergo.spring.legacy.factory");
+        try {
+            if (factory.isDiscovering()) {
+                step.tag("factoryCheck", String.valueOf(factory.getTypeCheck()));
+            } else {
+                step.tag("factoryType", factory.getFactoryTypeName());
+            }
+            AtomicLong registered = new AtomicLong();
+            beanDefinitions
+                    .map(bd -> new BeanDefinitionHolder(bd, beanNameGenerator.generateBeanName(bd, registry)))
+                    .filter(bdh -> !registry.containsBeanDefinition(bdh.getBeanName()))
+                    .forEach(bdh -> {
+                        BeanDefinitionReaderUtils.registerBeanDefinition(bdh, registry);
+                        factoryBeans.add(bdh);
+                        registered.incrementAndGet();
+                    });
+            step.tag("definitionsRegistered", registered.toString());
+            return registered.get();
+        } finally {
+            step.end();
+        }
+    }
+
+    /**
+     * Get the types of the beans registered by this post processing, resolved while scanning if possible.
+     */
+    private Map<String, Class<?>> getRegisteredTypes(BeanDefinitionRegistry registry, Set<String> existing) {
+        LegacyScanCache cache = scanCache;
+        Map<String, Class<?>> types = new LinkedHashMap<>();
+        for (String beanName : registry.getBeanDefinitionNames()) {
+            String className = registry.getBeanDefinition(beanName).getBeanClassName();
+            if (className != null && !existing.contains(beanName)) {
+                (cache == null ? CustomizingTypeFilter.getType(className) : cache.getType(className))
+                        .ifPresent(type -> types.put(beanName, type));
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Scans the base packages ignoring any index and creates index entries for all bean definitions found.
+     * Beans created from factories are not indexed, they depend on the registry at runtime.
+     */
+    List<LegacyBeanIndex.Entry> createIndexEntries() {
+        List<LegacyBeanIndex.Entry> entries = new ArrayList<>();
+        withScanCache(() -> entries.addAll(createIndexEntries(scanBeanDefinitions())));
+        return entries;
     }
 
-    private static class LegacyClassPathBeanDefinitionScanner extends ClassPathBeanDefinitionScanner {
+    /**
+     * Scan the base packages without registering, getting the bean definitions found by their names.
+     */
+    private Map<String, BeanDefinition> scanBeanDefinitions() {
+        SimpleBeanDefinitionRegistry registry = new SimpleBeanDefinitionRegistry();
+        scan(registry, false);
+        return getBeanDefinitions(registry);
+    }
 
-        private final BeanDefinitionCustomizer additionalCustomizer;
+    /**
+     * Identify the configuration of this post processor in the index.
+     *
+     * @see LegacyBeanIndex#key(String[], List, BeanNameGenerator)
+     */
+    String getIndexKey() {
+        return LegacyBeanIndex.key(basePackages, included, beanNameGenerator);
+    }
 
-        LegacyClassPathBeanDefinitionScanner(BeanDefinitionRegistry registry, boolean useDefaultFilters, Environment environment, BeanDefinitionCustomizer additionalCustomizer) {
-            super(registry, useDefaultFilters, environment);
-            this.additionalCustomizer = additionalCustomizer;
+    /**
+     * Check whether any of the type filters matches.
+     */
+    boolean matches(MetadataReader metadataReader, MetadataReaderFactory metadataReaderFactory) throws IOException {
+        for (CustomizingTypeFilter<?> filter : included) {
+            if (filter.match(metadataReader, metadataReaderFactory)) {
+                return true;
+            }
         }
+        return false;
+    }
 
-        @Override
-        protected boolean isCandidateComponent(AnnotatedBeanDefinition beanDefinition) {
-            AnnotationMetadata metadata = beanDefinition.getMetadata();
-            return metadata.isIndependent() && !metadata.isInterface();
+    /**
+     * Create bean definitions for the classes matched, customized, typed and named like scanned ones.
+     */
+    Map<String, BeanDefinition> createBeanDefinitions(Collection<String> classNames) {
+        SimpleBeanDefinitionRegistry registry = new SimpleBeanDefinitionRegistry();
+        classNames.stream()
+                .sorted()
+                .forEach(className -> {
+                    GenericBeanDefinition bd = new GenericBeanDefinition();
+                    bd.setBeanClassName(className);
+                    customizeBeanDefinition(bd);
+                    registry.registerBeanDefinition(beanNameGenerator.generateBeanName(bd, registry),
+                            LegacyInstanceSupplier.withTargetType(bd));
+                });
+        return getBeanDefinitions(registry);
+    }
+
+    /**
+     * Share resolved types and members of the type filters, passing {@code null} stops caching.
+     */
+    void useScanCache(LegacyScanCache cache) {
+        scanCache = cache;
+        included.forEach(filter -> filter.useCache(cache));
+    }
+
+    static List<LegacyBeanIndex.Entry> createIndexEntries(Map<String, BeanDefinition> beanDefinitions) {
+        return beanDefinitions.entrySet().stream()
+                .map(named -> LegacyBeanIndex.Entry.of(named.getKey(), named.getValue()))
+                .collect(toList());
+    }
+
+    private static Map<String, BeanDefinition> getBeanDefinitions(BeanDefinitionRegistry registry) {
+        Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<>();
+        Stream.of(registry.getBeanDefinitionNames())
+                .sorted()
+                .forEach(name -> beanDefinitions.put(name, registry.getBeanDefinition(name)));
+        return beanDefinitions;
+    }
+
+    /**
+     * Scan base packages and their class path roots concurrently using the executor.
+     *
+     * @see LegacyClassPathBeanDefinitionScanner#setExecutor(Executor)
+     */
+    void setScanExecutor(Executor scanExecutor) {
+        this.scanExecutor = scanExecutor;
+    }
+
+    /**
+     * Add the dependencies between the legacy singletons registered found in their class files.
+     *
+     * @see LegacyBeanDependencies
+     */
+    void setDependencyInference(boolean dependencyInference) {
+        this.dependencyInference = dependencyInference;
+    }
+
+    /**
+     * Record the creation of the legacy beans registered to a profile.
+     *
+     * @see LegacyBeanProfile
+     */
+    void setCreationProfiling(boolean creationProfiling) {
+        this.creationProfiling = creationProfiling;
+    }
+
+    /**
+     * Create the lazy singletons registered in the background after the context has been refreshed.
+     * Passing {@code null} disables the warm-up.
+     *
+     * @see LegacyBeanWarmUp
+     */
+    void setWarmUpExecutor(Executor warmUpExecutor) {
+        this.warmUpExecutor = warmUpExecutor;
+    }
+
+    /**
+     * Share the beans found by scanning with other post processors with the same configuration in the JVM.
+     *
+     * @see LegacyScanResults
+     */
+    void setSharedScanning(boolean sharedScanning) {
+        this.sharedScanning = sharedScanning;
+    }
+
+    /**
+     * Register the beans found by the last scan from the cache, if the class path has not changed since.
+     */
+    void setScanResultCache(LegacyScanResultCache scanResultCache) {
+        this.scanResultCache = scanResultCache;
+    }
+
+    /**
+     * Remember the class files scanned for this configuration in the JVM, so rescanning on a restart only evaluates
+     * class files changed since.
+     *
+     * @see LegacyScanState
+     */
+    void setIncrementalScanning(boolean incrementalScanning) {
+        this.incrementalScanning = incrementalScanning;
+    }
+
+    String[] getBasePackages() {
+        return basePackages.clone();
+    }
+
+    private Optional<List<LegacyBeanIndex.Entry>> findIndexed(ClassLoader classLoader) {
+        if (environment != null && environment.getProperty(LegacyBeanIndex.IGNORE_INDEX_PROPERTY, Boolean.class, false)) {
+            return Optional.empty();
+        }
+        return LegacyBeanIndex.load(classLoader).getEntries(getIndexKey());
+    }
+
+    /**
+     * Get the bean class loader of the registry, so indexes and results of the application are found even if this
+     * library is loaded by a parent class loader.
+     */
+    private static ClassLoader getClassLoader(BeanDefinitionRegistry registry) {
+        ClassLoader classLoader = registry instanceof ConfigurableBeanFactory
+                ? ((ConfigurableBeanFactory) registry).getBeanClassLoader()
+                : getResourcePatternResolver(registry).getClassLoader();
+        return classLoader == null ? LegacyBeanRegistryPostProcessor.class.getClassLoader() : classLoader;
+    }
+
+    private void withScanCache(Runnable processing) {
+        useScanCache(new LegacyScanCache());
+        try {
+            processing.run();
+        } finally {
+            useScanCache(null);
         }
+    }
+
+    private static ResourcePatternResolver getResourcePatternResolver(BeanDefinitionRegistry registry) {
+        return registry instanceof ResourceLoader
+                ? ResourcePatternUtils.getResourcePatternResolver((ResourceLoader) registry)
+                : new PathMatchingResourcePatternResolver();
+    }
 
-        @Override
-        protected void postProcessBeanDefinition(AbstractBeanDefinition beanDefinition, String beanName) {
-            super.postProcessBeanDefinition(beanDefinition, beanName);
-            additionalCustomizer.customize(beanDefinition);
+    private LegacyClassPathBeanDefinitionScanner createScanner(BeanDefinitionRegistry registry, boolean includeAnnotationConfig) {
+        LegacyClassPathBeanDefinitionScanner scanner = new LegacyClassPathBeanDefinitionScanner(registry, environment,
+                this::customizeBeanDefinition);
+        scanner.setExecutor(scanExecutor);
+        if (incrementalScanning) {
+            scanner.setScanState(LegacyScanState.forScan(getIndexKey()));
         }
+        scanner.setApplicationStartup(applicationStartup);
+        scanner.setBeanNameGenerator(beanNameGenerator);
+        scanner.setIncludeAnnotationConfig(includeAnnotationConfig);
+        return scanner;
+    }
+
+    private void customizeBeanDefinition(BeanDefinition bd) {
+        included.stream()
+                .filter(included -> included.supports(bd))
+                .findFirst()
+                .ifPresent(included -> included.customize(bd));
     }
 }
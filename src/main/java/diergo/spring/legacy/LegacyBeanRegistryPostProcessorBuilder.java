@@ -7,13 +7,13 @@ import static org.springframework.beans.factory.config.BeanDefinition.SCOPE_SING
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.function.Function;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
-import java.util.stream.Stream;
-import org.springframework.beans.FatalBeanException;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionReaderUtils;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
@@ -43,9 +43,17 @@ public class LegacyBeanRegistryPostProcessorBuilder {
 
     private final String[] basePackages;
     private final List<CustomizingTypeFilter<?>> included = new ArrayList<>();
-    private final List<Function<BeanDefinitionRegistry, Stream<BeanDefinition>>> factories = new ArrayList<>();
+    private final List<LegacyFactoryBeanScanner> factories = new ArrayList<>();
     private BeanNameGenerator beanNameGenerator = BeanDefinitionReaderUtils::generateBeanName;
     private int order = Ordered.LOWEST_PRECEDENCE;
+    private boolean metadataMatching;
+    private Executor scanExecutor;
+    private Path scanResultCache;
+    private boolean incrementalScanning;
+    private boolean sharedScanning;
+    private Executor warmUpExecutor;
+    private boolean dependencyInference;
+    private boolean creationProfiling;
 
     private LegacyBeanRegistryPostProcessorBuilder(String... basePackages) {
         this.basePackages = basePackages;
@@ -71,6 +79,123 @@ public class LegacyBeanRegistryPostProcessorBuilder {
         return this;
     }
 
+    /**
+     * Check the members of scanned classes from class file metadata before loading the classes.
+     * Only classes with members possibly matching will be loaded, so scanning large packages needs less time and memory.
+     * Checks created by {@link MemberPredicates} are done on the metadata, any other checks on the loaded members.
+     *
+     * @since 1.1
+     */
+    public LegacyBeanRegistryPostProcessorBuilder metadataMatching() {
+        this.metadataMatching = true;
+        return this;
+    }
+
+    /**
+     * Scan the base packages and the class path roots (directories and JAR files) of each package concurrently
+     * using the common fork join pool. Beans are registered in the same order as scanning sequentially.
+     *
+     * @see #parallelScanning(Executor)
+     * @since 1.1
+     */
+    public LegacyBeanRegistryPostProcessorBuilder parallelScanning() {
+        return parallelScanning(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Scan the base packages and the class path roots (directories and JAR files) of each package concurrently
+     * using the executor passed. Beans are registered in the same order as scanning sequentially.
+     *
+     * @since 1.1
+     */
+    public LegacyBeanRegistryPostProcessorBuilder parallelScanning(Executor executor) {
+        this.scanExecutor = executor;
+        return this;
+    }
+
+    /**
+     * Remember the class files scanned in this JVM, so scanning again on a restart of the context, e.g. by development
+     * tools or test runners, only reads and evaluates the class files changed, added or removed since.
+     * A class is evaluated again only if its own class file changed. The configuration is identified by the base
+     * packages, the checks and the bean naming. Checks not created by {@link MemberPredicates} are identified by their
+     * position only: after changing them, class files not changed are not evaluated again, and post processors
+     * differing in those checks only must not scan incrementally in the same JVM.
+     *
+     * @since 1.1
+     */
+    public LegacyBeanRegistryPostProcessorBuilder incrementalScanning() {
+        this.incrementalScanning = true;
+        return this;
+    }
+
+    /**
+     * Read the class files of the legacy singletons registered to find the other legacy singletons initialized by
+     * their static initializers, constructors and factory methods, and let them depend on those. This way the bean
+     * factory and the {@link #warmUp(Executor) warm-up} create them in the order of their initialization.
+     * Dependencies closing a cycle are dropped.
+     *
+     * @since 1.1
+     */
+    public LegacyBeanRegistryPostProcessorBuilder inferDependencies() {
+        this.dependencyInference = true;
+        return this;
+    }
+
+    /**
+     * Measure the creation of all legacy beans registered, the time to initialize the class accessed and to invoke
+     * the member separately, the bytes allocated and the thread creating them. Get the {@link LegacyBeanProfile} bean
+     * from the context for a report ranked by the time spent. This adds overhead to each creation, so use it to find
+     * the legacy beans to warm up, cache or rewrite first.
+     *
+     * @since 1.1
+     */
+    public LegacyBeanRegistryPostProcessorBuilder profileCreation() {
+        this.creationProfiling = true;
+        return this;
+    }
+
+    /**
+     * Create all legacy singletons registered in the background after the context has been refreshed using the
+     * executor passed, e.g. virtual threads on Java 21. Their classes are initialized one after the other first, as
+     * static initializers using each other circularly would deadlock in parallel. Legacy singletons are created in
+     * parallel afterwards, each after the legacy beans it depends on. Wait for the {@link LegacyBeanWarmUp} bean to complete before
+     * signalling readiness if needed. Not applied to applications processed ahead of time.
+     *
+     * @see java.util.concurrent.Executors
+     * @since 1.1
+     */
+    public LegacyBeanRegistryPostProcessorBuilder warmUp(Executor executor) {
+        this.warmUpExecutor = executor;
+        return this;
+    }
+
+    /**
+     * Share the beans found by scanning with all other post processors sharing them in this JVM, so other contexts
+     * with the same class loader, base packages, checks and bean naming register them without scanning. Post
+     * processors of the same registry sharing their results scan together in a single walk of the class path.
+     * Checks not created by {@link MemberPredicates} cannot be identified, so post processors using them do not share.
+     *
+     * @since 1.1
+     */
+    public LegacyBeanRegistryPostProcessorBuilder shareScanResults() {
+        this.sharedScanning = true;
+        return this;
+    }
+
+    /**
+     * Save the beans found by scanning to the file passed and register them from the file on the next start,
+     * as long as the class path roots of the base packages and the configuration have not changed.
+     * An index of the base packages still takes precedence. Checks not created by {@link MemberPredicates} are
+     * identified by their position only, so delete the file after changing them.
+     *
+     * @see LegacyBeanIndexer
+     * @since 1.1
+     */
+    public LegacyBeanRegistryPostProcessorBuilder cacheScanResults(Path file) {
+        this.scanResultCache = file;
+        return this;
+    }
+
     /**
      * Start to configure singleton bean registration.
      */
@@ -86,20 +211,33 @@ public class LegacyBeanRegistryPostProcessorBuilder {
     }
 
     /**
-     * Start to configure a factory bean.
+     * Start to configure a factory bean. The type is resolved when post processing, a type that cannot be resolved
+     * is reported together with all missing factory beans.
      *
      * @param type the fully qualified name of the factory bean type
      */
     public FactoryBuilder factory(String type) {
-        return new FactoryBuilder(() -> CustomizingTypeFilter.getType(type)
-                .orElseThrow(() -> new FatalBeanException("Cannot inspect bean type " + type)));
+        return new FactoryBuilder(type, null, null);
     }
 
     /**
      * Start to configure a factory bean.
      */
     public FactoryBuilder factory(Class<?> type) {
-        return new FactoryBuilder(() -> type);
+        return new FactoryBuilder(null, () -> type, null);
+    }
+
+    /**
+     * Start to configure factory beans discovered by their type, e.g. all classes named {@code *Factory}.
+     * All legacy beans registered by the post processor with a type passing the check are used as factory beans.
+     * Their types have been resolved by scanning already, with {@link #metadataMatching()} their methods are
+     * prechecked using the class file members read while scanning, too.
+     *
+     * @param typeCheck the check the types of the legacy beans have to fulfill to be used as factory beans
+     * @since 1.1
+     */
+    public FactoryBuilder factories(Predicate<? super Class<?>> typeCheck) {
+        return new FactoryBuilder(null, null, typeCheck);
     }
 
     /**
@@ -114,7 +252,20 @@ public class LegacyBeanRegistryPostProcessorBuilder {
             included.add(new LegacyBeanMethodFilter(SCOPE_SINGLETON, anyGetter()));
             included.add(new LegacySingletonFieldFilter(anyConstant()));
         }
-        return new LegacyBeanRegistryPostProcessor(included, factories, beanNameGenerator, order, basePackages);
+        if (metadataMatching) {
+            included.forEach(CustomizingTypeFilter::useMetadataMatching);
+        }
+        LegacyBeanRegistryPostProcessor processor = new LegacyBeanRegistryPostProcessor(included, factories, beanNameGenerator, order, basePackages);
+        processor.setScanExecutor(scanExecutor);
+        processor.setIncrementalScanning(incrementalScanning);
+        processor.setSharedScanning(sharedScanning);
+        processor.setWarmUpExecutor(warmUpExecutor);
+        processor.setDependencyInference(dependencyInference);
+        processor.setCreationProfiling(creationProfiling);
+        if (scanResultCache != null) {
+            processor.setScanResultCache(new LegacyScanResultCache(scanResultCache));
+        }
+        return processor;
     }
 
     private abstract class Builder {
@@ -165,15 +316,19 @@ public class LegacyBeanRegistryPostProcessorBuilder {
     }
 
     /**
-     * Configures bean registrations using a factory bean.
+     * Configures bean registrations using a factory bean or the factory beans discovered.
      * The factory bean has to be registered before as a bean!
      */
     public class FactoryBuilder {
 
+        private final String typeName;
         private final Supplier<Class<?>> type;
+        private final Predicate<? super Class<?>> typeCheck;
 
-        private FactoryBuilder(Supplier<Class<?>> type) {
+        private FactoryBuilder(String typeName, Supplier<Class<?>> type, Predicate<? super Class<?>> typeCheck) {
+            this.typeName = typeName;
             this.type = type;
+            this.typeCheck = typeCheck;
         }
 
         /**
@@ -182,7 +337,7 @@ public class LegacyBeanRegistryPostProcessorBuilder {
          * @param methodCheck the additional check methods have to fulfill to be included
          */
         public LegacyBeanRegistryPostProcessorBuilder singletons(Predicate<? super Method> methodCheck) {
-            return addFactory(new LegacyFactoryBeanScanner(type, methodCheck, SCOPE_SINGLETON));
+            return addFactory(createFactory(methodCheck, SCOPE_SINGLETON));
         }
 
         /**
@@ -191,10 +346,18 @@ public class LegacyBeanRegistryPostProcessorBuilder {
          * @param methodCheck the additional check methods have to fulfill to be included
          */
         public LegacyBeanRegistryPostProcessorBuilder prototypes(Predicate<? super Method> methodCheck) {
-            return addFactory(new LegacyFactoryBeanScanner(type, methodCheck, SCOPE_PROTOTYPE));
+            return addFactory(createFactory(methodCheck, SCOPE_PROTOTYPE));
+        }
+
+        private LegacyFactoryBeanScanner createFactory(Predicate<? super Method> methodCheck, String scope) {
+            if (typeCheck != null) {
+                return new LegacyFactoryBeanScanner(typeCheck, methodCheck, scope);
+            }
+            return typeName != null ? new LegacyFactoryBeanScanner(typeName, methodCheck, scope)
+                    : new LegacyFactoryBeanScanner(type, methodCheck, scope);
         }
 
-        private LegacyBeanRegistryPostProcessorBuilder addFactory(Function<BeanDefinitionRegistry, Stream<BeanDefinition>> factory) {
+        private LegacyBeanRegistryPostProcessorBuilder addFactory(LegacyFactoryBeanScanner factory) {
             factories.add(factory);
             return LegacyBeanRegistryPostProcessorBuilder.this;
         }
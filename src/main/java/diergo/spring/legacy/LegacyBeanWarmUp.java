@@ -0,0 +1,147 @@
+package diergo.spring.legacy;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+/**
+ * Creates the lazy legacy singletons registered by a post processor in the background after the context has been
+ * refreshed, so their static initializers do not run on the first request using them. The classes of the beans are
+ * initialized one after the other by a single task of the executor configured, as static initializers of legacy classes
+ * often use each other circularly and would deadlock when run in parallel. The beans are created in parallel afterwards,
+ * each after all legacy beans it depends on. Each bean created is logged at debug level, each failure as warning and the
+ * total at info level. Get this bean from the context and wait for {@link #completion()} to signal readiness after
+ * warm-up.
+ *
+ * @see LegacyBeanRegistryPostProcessorBuilder#warmUp(Executor)
+ * @since 1.1
+ */
+public final class LegacyBeanWarmUp implements BeanFactoryAware, ApplicationListener<ContextRefreshedEvent> {
+
+    private static final Log LOG = LogFactory.getLog(LegacyBeanWarmUp.class);
+
+    private final Executor executor;
+    private final Set<String> beanNames;
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private ConfigurableListableBeanFactory beanFactory;
+
+    LegacyBeanWarmUp(Executor executor, Set<String> beanNames) {
+        this.executor = executor;
+        this.beanNames = new LinkedHashSet<>(beanNames);
+    }
+
+    /**
+     * Get a new stage of the warm-up of all beans, failing with the first failure if any bean could not be created.
+     */
+    public CompletableFuture<Void> completion() {
+        return completion.thenApply(Function.identity());
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
+    }
+
+    /**
+     * Start the warm-up once after the context of this bean has been refreshed.
+     */
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (event.getApplicationContext().getAutowireCapableBeanFactory() != beanFactory || !started.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.nanoTime();
+        AtomicInteger failed = new AtomicInteger();
+        CompletableFuture<Void> initialized = new CompletableFuture<>();
+        Map<String, CompletableFuture<Void>> warmingUp = new LinkedHashMap<>();
+        List<CompletableFuture<Void>> all = new ArrayList<>();
+        for (String beanName : beanNames) {
+            all.add(warmUp(beanName, initialized, warmingUp, new LinkedHashSet<>()).whenComplete((done, failure) -> {
+                if (failure != null) {
+                    failed.incrementAndGet();
+                }
+            }));
+        }
+        List<String> ordered = new ArrayList<>(warmingUp.keySet());
+        CompletableFuture.runAsync(() -> ordered.forEach(this::initializeClass), executor)
+                .whenComplete((done, failure) -> initialized.complete(null));
+        CompletableFuture.allOf(all.toArray(new CompletableFuture<?>[0])).whenComplete((done, failure) -> {
+            LOG.info("Warmed up " + (all.size() - failed.get()) + " legacy singletons in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms, " + failed.get() + " failed");
+            if (failure == null) {
+                completion.complete(null);
+            } else {
+                completion.completeExceptionally(failure);
+            }
+        });
+    }
+
+    /**
+     * Create the bean after the classes have been initialized and after the legacy beans it depends on. Circular
+     * dependencies are not waited for, the bean factory reports them when creating the bean. The beans are added to
+     * the warm-ups after their dependencies, so this is the order to initialize their classes.
+     */
+    private CompletableFuture<Void> warmUp(String beanName, CompletableFuture<Void> initialized,
+            Map<String, CompletableFuture<Void>> warmingUp, Set<String> path) {
+        CompletableFuture<Void> warmUp = warmingUp.get(beanName);
+        if (warmUp != null) {
+            return warmUp;
+        }
+        path.add(beanName);
+        List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+        dependencies.add(initialized);
+        String[] dependsOn = beanFactory.containsBeanDefinition(beanName)
+                ? beanFactory.getMergedBeanDefinition(beanName).getDependsOn() : null;
+        if (dependsOn != null) {
+            for (String dependency : dependsOn) {
+                if (beanNames.contains(dependency) && !path.contains(dependency)) {
+                    dependencies.add(warmUp(dependency, initialized, warmingUp, new LinkedHashSet<>(path)));
+                }
+            }
+        }
+        warmUp = CompletableFuture.allOf(dependencies.toArray(new CompletableFuture<?>[0]))
+                .thenRunAsync(() -> createBean(beanName), executor)
+                .whenComplete((done, failure) -> {
+                    if (failure != null) {
+                        LOG.warn("Failed to warm up legacy singleton " + beanName, failure);
+                    }
+                });
+        warmingUp.put(beanName, warmUp);
+        return warmUp;
+    }
+
+    private void initializeClass(String beanName) {
+        String className = beanFactory.containsBeanDefinition(beanName)
+                ? beanFactory.getMergedBeanDefinition(beanName).getBeanClassName() : null;
+        if (className != null) {
+            try {
+                Class.forName(className, true, beanFactory.getBeanClassLoader());
+            } catch (ClassNotFoundException | LinkageError e) {
+                // reported by creating the bean
+            }
+        }
+    }
+
+    private void createBean(String beanName) {
+        beanFactory.getBean(beanName);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Warmed up legacy singleton " + beanName);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package diergo.spring.legacy;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionCustomizer;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.context.annotation.ClassPathBeanDefinitionScanner;
+import org.springframework.context.annotation.ScannedGenericBeanDefinition;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternUtils;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.util.ClassUtils;
+
+/**
+ * A scanner for independent classes of legacy code customizing all bean definitions found.
+ * If an executor is set, the base packages are scanned concurrently, each class path root of a package
+ * (a directory or JAR file) in a separate task. The bean definitions are registered afterwards on the
+ * calling thread in the same order as scanning them sequentially, so bean names are stable.
+ * Each base package is recorded as startup step tagged with the classes visited, matched and registered.
+ * If a scan state is set, only class files changed since the last scan with the same state are evaluated,
+ * the classes not evaluated again are tagged as unchanged.
+ *
+ * @see LegacyBeanRegistryPostProcessor
+ */
+class LegacyClassPathBeanDefinitionScanner extends ClassPathBeanDefinitionScanner {
+
+    private static final String CLASS_RESOURCE_PATTERN = "**/*.class";
+
+    private final BeanDefinitionCustomizer additionalCustomizer;
+    private Executor executor;
+    private LegacyScanState scanState;
+    private long scan;
+    private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
+    private Map<String, CompletableFuture<Set<BeanDefinition>>> scanning;
+    private final Map<String, ScanCounters> counters = new ConcurrentHashMap<>();
+    private ScanCounters sequentialCounters = new ScanCounters();
+
+    LegacyClassPathBeanDefinitionScanner(BeanDefinitionRegistry registry, Environment environment, BeanDefinitionCustomizer additionalCustomizer) {
+        super(registry, false, environment);
+        this.additionalCustomizer = additionalCustomizer;
+    }
+
+    /**
+     * Scan the base packages and the class path roots of each package concurrently using the executor.
+     * Passing {@code null} scans sequentially on the calling thread.
+     */
+    void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Remember the class files scanned in the state passed and evaluate only class files changed since the last scan.
+     * Passing {@code null} evaluates all class files.
+     */
+    void setScanState(LegacyScanState scanState) {
+        this.scanState = scanState;
+    }
+
+    /**
+     * Record the scan of each base package as startup step.
+     */
+    void setApplicationStartup(ApplicationStartup applicationStartup) {
+        this.applicationStartup = applicationStartup;
+    }
+
+    @Override
+    protected Set<BeanDefinitionHolder> doScan(String... basePackages) {
+        if (scanState != null) {
+            scan = scanState.startScan();
+        }
+        if (executor != null) {
+            scanning = Stream.of(basePackages)
+                    .distinct()
+                    .collect(toMap(Function.identity(), this::scanConcurrently));
+        }
+        try {
+            Set<BeanDefinitionHolder> beanDefinitions = new LinkedHashSet<>();
+            for (String basePackage : basePackages) {
+                beanDefinitions.addAll(scanPackage(basePackage));
+            }
+            if (scanState != null) {
+                scanState.endScan(scan);
+            }
+            return beanDefinitions;
+        } finally {
+            scanning = null;
+            counters.clear();
+        }
+    }
+
+    private Set<BeanDefinitionHolder> scanPackage(String basePackage) {
+        StartupStep step = applicationStartup.start("diergo.spring.legacy.scan")
+                .tag("basePackage", basePackage);
+        sequentialCounters = new ScanCounters();
+        try {
+            Set<BeanDefinitionHolder> beanDefinitions = super.doScan(basePackage);
+            ScanCounters scanned = counters.getOrDefault(basePackage, sequentialCounters);
+            step.tag("classesVisited", String.valueOf(scanned.visited.sum()))
+                    .tag("classesMatched", String.valueOf(scanned.matched.sum()))
+                    .tag("classesUnchanged", String.valueOf(scanned.unchanged.sum()))
+                    .tag("definitionsRegistered", String.valueOf(beanDefinitions.size()));
+            return beanDefinitions;
+        } finally {
+            step.end();
+        }
+    }
+
+    /**
+     * Get the candidates scanned concurrently or scan the package now.
+     * With a scan state, the class path roots are scanned using the state.
+     */
+    @Override
+    public Set<BeanDefinition> findCandidateComponents(String basePackage) {
+        CompletableFuture<Set<BeanDefinition>> candidates = scanning == null ? null : scanning.get(basePackage);
+        if (candidates == null) {
+            if (scanState == null) {
+                return super.findCandidateComponents(basePackage);
+            }
+            Set<BeanDefinition> scanned = new LinkedHashSet<>();
+            for (Resource root : getRoots(basePackage)) {
+                scanned.addAll(scanRoot(root, sequentialCounters));
+            }
+            return scanned;
+        }
+        try {
+            return candidates.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new BeanDefinitionStoreException("Failed to scan " + basePackage, e.getCause());
+        }
+    }
+
+    @Override
+    protected boolean isCandidateComponent(MetadataReader metadataReader) throws IOException {
+        return isCandidateComponent(metadataReader, sequentialCounters);
+    }
+
+    private boolean isCandidateComponent(MetadataReader metadataReader, ScanCounters scanned) throws IOException {
+        scanned.visited.increment();
+        boolean candidate = super.isCandidateComponent(metadataReader);
+        if (candidate) {
+            scanned.matched.increment();
+        }
+        return candidate;
+    }
+
+    @Override
+    protected boolean isCandidateComponent(AnnotatedBeanDefinition beanDefinition) {
+        AnnotationMetadata metadata = beanDefinition.getMetadata();
+        return metadata.isIndependent() && !metadata.isInterface();
+    }
+
+    @Override
+    protected void postProcessBeanDefinition(AbstractBeanDefinition beanDefinition, String beanName) {
+        super.postProcessBeanDefinition(beanDefinition, beanName);
+        additionalCustomizer.customize(beanDefinition);
+    }
+
+    /**
+     * Register legacy beans with the type of the member resolved while scanning as target type.
+     *
+     * @see LegacyInstanceSupplier#withTargetType(BeanDefinition)
+     */
+    @Override
+    protected void registerBeanDefinition(BeanDefinitionHolder definitionHolder, BeanDefinitionRegistry registry) {
+        BeanDefinition bd = LegacyInstanceSupplier.withTargetType(definitionHolder.getBeanDefinition());
+        super.registerBeanDefinition(bd == definitionHolder.getBeanDefinition() ? definitionHolder
+                : new BeanDefinitionHolder(bd, definitionHolder.getBeanName(), definitionHolder.getAliases()), registry);
+    }
+
+    private CompletableFuture<Set<BeanDefinition>> scanConcurrently(String basePackage) {
+        ScanCounters scanned = counters.computeIfAbsent(basePackage, key -> new ScanCounters());
+        List<CompletableFuture<Set<BeanDefinition>>> roots = Stream.of(getRoots(basePackage))
+                .map(root -> CompletableFuture.supplyAsync(() -> scanRoot(root, scanned), executor))
+                .collect(toList());
+        return CompletableFuture.allOf(roots.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> {
+                    Set<BeanDefinition> candidates = new LinkedHashSet<>();
+                    roots.forEach(root -> candidates.addAll(root.join()));
+                    return candidates;
+                });
+    }
+
+    private Resource[] getRoots(String basePackage) {
+        String packageRootPath = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX + resolveBasePackage(basePackage) + '/';
+        try {
+            return getResourcePatternResolver().getResources(packageRootPath);
+        } catch (IOException e) {
+            throw new BeanDefinitionStoreException("I/O failure during classpath scanning", e);
+        }
+    }
+
+    private Set<BeanDefinition> scanRoot(Resource root, ScanCounters scanned) {
+        Set<BeanDefinition> candidates = new LinkedHashSet<>();
+        try {
+            String rootUrl = root.getURL().toString();
+            for (Resource resource : getResourcePatternResolver().getResources(rootUrl + CLASS_RESOURCE_PATTERN)) {
+                scanResource(resource, candidates, scanned);
+            }
+        } catch (IOException e) {
+            throw new BeanDefinitionStoreException("I/O failure during classpath scanning of " + root, e);
+        }
+        return candidates;
+    }
+
+    private void scanResource(Resource resource, Set<BeanDefinition> candidates, ScanCounters scanned) {
+        String filename = resource.getFilename();
+        if (filename != null && filename.contains(ClassUtils.CGLIB_CLASS_SEPARATOR)) {
+            return;
+        }
+        try {
+            if (isCandidateComponent(resource, scanned)) {
+                ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(
+                        getMetadataReaderFactory().getMetadataReader(resource));
+                sbd.setSource(resource);
+                if (isCandidateComponent(sbd)) {
+                    candidates.add(sbd);
+                }
+            }
+        } catch (FileNotFoundException e) {
+            // not readable, ignored like by the sequential scan
+        } catch (IOException e) {
+            throw new BeanDefinitionStoreException("Failed to read candidate component class: " + resource, e);
+        }
+    }
+
+    private boolean isCandidateComponent(Resource resource, ScanCounters scanned) throws IOException {
+        if (scanState == null) {
+            return isCandidateComponent(getMetadataReaderFactory().getMetadataReader(resource), scanned);
+        }
+        AtomicBoolean evaluated = new AtomicBoolean();
+        boolean candidate = scanState.isCandidate(scan, resource, () -> {
+            evaluated.set(true);
+            return isCandidateComponent(getMetadataReaderFactory().getMetadataReader(resource), scanned);
+        });
+        if (!evaluated.get()) {
+            scanned.unchanged.increment();
+        }
+        return candidate;
+    }
+
+    private ResourcePatternResolver getResourcePatternResolver() {
+        return ResourcePatternUtils.getResourcePatternResolver(getResourceLoader());
+    }
+
+    private static final class ScanCounters {
+
+        final LongAdder visited = new LongAdder();
+        final LongAdder matched = new LongAdder();
+        final LongAdder unchanged = new LongAdder();
+    }
+}
@@ -0,0 +1,100 @@
+package diergo.spring.legacy;
+
+import static java.util.stream.Collectors.joining;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.springframework.beans.FatalBeanException;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+
+/**
+ * Index of bean names by bean class name, built once per post processing and shared by all factory bean scanners.
+ * Factory types not found or not resolvable are collected, so all of them can be reported at once.
+ *
+ * @see LegacyFactoryBeanScanner#apply(LegacyFactoryBeanIndex)
+ */
+final class LegacyFactoryBeanIndex {
+
+    private final BeanDefinitionRegistry registry;
+    private final Map<String, String> beanNames = new HashMap<>();
+    private final Set<String> missing = new LinkedHashSet<>();
+    private final Set<String> unresolvable = new LinkedHashSet<>();
+
+    /**
+     * Index all bean definitions of the registry, the first bean of a class wins.
+     */
+    LegacyFactoryBeanIndex(BeanDefinitionRegistry registry) {
+        this.registry = registry;
+        for (String name : registry.getBeanDefinitionNames()) {
+            String className = registry.getBeanDefinition(name).getBeanClassName();
+            if (className != null) {
+                beanNames.putIfAbsent(className, name);
+            }
+        }
+    }
+
+    /**
+     * The registry indexed.
+     */
+    BeanDefinitionRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Index a bean registered after creating the index.
+     */
+    void add(BeanDefinitionHolder bdh) {
+        String className = bdh.getBeanDefinition().getBeanClassName();
+        if (className != null) {
+            beanNames.putIfAbsent(className, bdh.getBeanName());
+        }
+    }
+
+    /**
+     * Find the name of the bean with exactly the type passed, missing types are remembered.
+     *
+     * @see #checkMissing()
+     */
+    Optional<String> getBeanName(Class<?> type) {
+        Optional<String> beanName = Optional.ofNullable(beanNames.get(type.getName()));
+        if (!beanName.isPresent()) {
+            missing.add(type.getName());
+        }
+        return beanName;
+    }
+
+    /**
+     * Remember a factory bean type that cannot be resolved by its name.
+     *
+     * @see #checkMissing()
+     */
+    void addUnresolvable(String typeName) {
+        unresolvable.add(typeName);
+    }
+
+    /**
+     * Fail for all types missing or not resolvable at once.
+     *
+     * @throws FatalBeanException if any type requested was missing or could not be resolved
+     */
+    void checkMissing() {
+        List<String> failures = new ArrayList<>();
+        if (!unresolvable.isEmpty()) {
+            failures.add(unresolvable.stream()
+                    .collect(joining(", ", "Cannot inspect factory bean type ", "")));
+        }
+        if (!missing.isEmpty()) {
+            failures.add(missing.stream()
+                    .collect(joining(", ", "Missing factory bean of type ", "")));
+        }
+        if (!failures.isEmpty()) {
+            throw new FatalBeanException(String.join("; ", failures));
+        }
+    }
+}
@@ -1,32 +1,69 @@
 package diergo.spring.legacy;
 
+import static java.util.stream.Collectors.toSet;
 import static org.springframework.util.ReflectionUtils.getAllDeclaredMethods;
 
 import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 import org.springframework.beans.FatalBeanException;
+import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.config.BeanDefinition;
-import org.springframework.beans.factory.config.BeanDefinitionHolder;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
-import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.ResolvableType;
 
 /**
  * Creates a number of bean definitions based on a unique registered bean definition and its matching factory methods.
  * Each of the mathing methods will create a new bean definition with a dependency on the original bean definition.
+ * If the registry is a bean factory, the bean definitions call the factory methods using an instance supplier.
+ * The return type of the factory method resolved against the factory type is the target type of the bean definitions.
+ * A discovering scanner uses all legacy beans registered matching its type check as factory beans instead.
  *
  * @see LegacyBeanRegistryPostProcessorBuilder.FactoryBuilder
  */
 class LegacyFactoryBeanScanner implements Function<BeanDefinitionRegistry, Stream<BeanDefinition>> {
 
+    private final String typeName;
     private final Supplier<Class<?>> type;
+    private final Predicate<? super Class<?>> typeCheck;
     private final Predicate<? super Method> methodCheck;
     private final String scope;
 
     public LegacyFactoryBeanScanner(Supplier<Class<?>> type, Predicate<? super Method> methodCheck, String scope) {
+        this(null, type, null, methodCheck, scope);
+    }
+
+    /**
+     * Create a scanner resolving its factory bean type by name when applied.
+     * A type that cannot be resolved is reported together with the missing factory beans.
+     *
+     * @see LegacyFactoryBeanIndex#checkMissing()
+     */
+    LegacyFactoryBeanScanner(String typeName, Predicate<? super Method> methodCheck, String scope) {
+        this(typeName, () -> CustomizingTypeFilter.getType(typeName).orElse(null), null, methodCheck, scope);
+    }
+
+    /**
+     * Create a scanner discovering its factory beans by the type check.
+     *
+     * @see #discover(Map, Function, BeanDefinitionRegistry)
+     */
+    LegacyFactoryBeanScanner(Predicate<? super Class<?>> typeCheck, Predicate<? super Method> methodCheck, String scope) {
+        this(null, null, typeCheck, methodCheck, scope);
+    }
+
+    private LegacyFactoryBeanScanner(String typeName, Supplier<Class<?>> type, Predicate<? super Class<?>> typeCheck,
+                                     Predicate<? super Method> methodCheck, String scope) {
+        this.typeName = typeName;
         this.type = type;
+        this.typeCheck = typeCheck;
         this.methodCheck = MemberPredicates.withoutParameters()
                 .and(MemberPredicates.returningBeanType())
                 .and(MemberPredicates.noObjectMethod())
@@ -38,32 +75,113 @@ class LegacyFactoryBeanScanner implements Function<BeanDefinitionRegistry, Strea
 
     /**
      * Find the bean definition with the required type and create bean definitions for each matching method.
+     *
+     * @throws FatalBeanException if the required type cannot be resolved or there is no bean definition of it
      */
     @Override
     public Stream<BeanDefinition> apply(BeanDefinitionRegistry registry) {
-        Class<?> clazz = type.get();
-        String factoryBean = findFactoryBean(clazz, registry);
-        return Stream.of(getAllDeclaredMethods(clazz))
-                .filter(methodCheck)
-                .map(method -> createBeanDefinition(factoryBean, method));
+        LegacyFactoryBeanIndex index = new LegacyFactoryBeanIndex(registry);
+        Stream<BeanDefinition> beanDefinitions = apply(index);
+        index.checkMissing();
+        return beanDefinitions;
+    }
+
+    /**
+     * Find the bean definition with the required type in the index and create bean definitions for each matching method.
+     * If the type cannot be resolved or the index does not contain it, no bean definitions are created.
+     *
+     * @see LegacyFactoryBeanIndex#checkMissing()
+     */
+    Stream<BeanDefinition> apply(LegacyFactoryBeanIndex index) {
+        Class<?> clazz = getFactoryType();
+        if (clazz == null) {
+            index.addUnresolvable(typeName);
+            return Stream.empty();
+        }
+        return index.getBeanName(clazz)
+                .map(factoryBean -> createBeanDefinitions(factoryBean, clazz, Stream.of(getAllDeclaredMethods(clazz)), index.getRegistry()))
+                .orElseGet(Stream::empty);
+    }
+
+    /**
+     * Create bean definitions for each matching method of the beans passed matching the type check.
+     * If the class file members read while scanning are passed for a factory type without super class,
+     * only the methods matching by their signature are resolved, so types without any are not inspected at all.
+     *
+     * @param types the types of the legacy beans registered by bean name
+     * @param members the class file members read while scanning by class name, if any
+     */
+    Stream<BeanDefinition> discover(Map<String, Class<?>> types,
+                                    Function<String, Optional<List<LegacyMemberSignature>>> members,
+                                    BeanDefinitionRegistry registry) {
+        Predicate<LegacyMemberSignature> signatureCheck = MemberPredicates.signatureCheck(methodCheck);
+        return types.entrySet().stream()
+                .filter(bean -> typeCheck.test(bean.getValue()))
+                .flatMap(bean -> {
+                    Class<?> clazz = bean.getValue();
+                    Optional<Set<String>> names = Optional.of(clazz)
+                            .filter(factoryType -> Object.class.equals(factoryType.getSuperclass()))
+                            .flatMap(factoryType -> members.apply(factoryType.getName()))
+                            .map(signatures -> signatures.stream()
+                                    .filter(signature -> !signature.isField())
+                                    .filter(signatureCheck)
+                                    .map(LegacyMemberSignature::getName)
+                                    .collect(toSet()));
+                    Stream<Method> methods = names
+                            .map(matched -> matched.isEmpty() ? Stream.<Method>empty()
+                                    : Stream.of(clazz.getDeclaredMethods()).filter(method -> matched.contains(method.getName())))
+                            .orElseGet(() -> Stream.of(getAllDeclaredMethods(clazz)));
+                    return createBeanDefinitions(bean.getKey(), clazz, methods, registry);
+                });
+    }
+
+    /**
+     * Whether the factory beans are discovered by a type check instead of a type.
+     */
+    boolean isDiscovering() {
+        return typeCheck != null;
+    }
+
+    /**
+     * Resolve the factory bean type, {@code null} if it cannot be resolved by name.
+     */
+    Class<?> getFactoryType() {
+        return type.get();
     }
 
-    private String findFactoryBean(Class<?> type, BeanDefinitionRegistry registry) {
-        return Stream.of(registry.getBeanDefinitionNames())
-                .map(name -> new BeanDefinitionHolder(registry.getBeanDefinition(name), name))
-                .filter(bdh -> type.getName().equals(bdh.getBeanDefinition().getBeanClassName()))
-                .map(BeanDefinitionHolder::getBeanName)
-                .findAny()
-                .orElseThrow(() -> new FatalBeanException("Missing factory bean of type " + type));
+    /**
+     * Get the name of the factory bean type without resolving it if configured by name.
+     */
+    String getFactoryTypeName() {
+        return typeName != null ? typeName : type.get().getName();
+    }
+
+    /**
+     * Get the check of discovered factory bean types.
+     */
+    Predicate<? super Class<?>> getTypeCheck() {
+        return typeCheck;
+    }
+
+    private Stream<BeanDefinition> createBeanDefinitions(String factoryBean, Class<?> factoryType, Stream<Method> methods,
+                                                         BeanDefinitionRegistry registry) {
+        return methods
+                .filter(methodCheck)
+                .map(method -> (BeanDefinition) createBeanDefinition(factoryBean, factoryType, method, registry));
     }
 
-    private GenericBeanDefinition createBeanDefinition(String factoryBean, Method method) {
-        GenericBeanDefinition bd = new GenericBeanDefinition();
+    private RootBeanDefinition createBeanDefinition(String factoryBean, Class<?> factoryType, Method method, BeanDefinitionRegistry registry) {
+        RootBeanDefinition bd = new RootBeanDefinition();
         bd.setFactoryBeanName(factoryBean);
+        bd.setResolvedFactoryMethod(method);
         bd.setFactoryMethodName(method.getName());
         bd.setBeanClass(method.getReturnType());
+        bd.setTargetType(ResolvableType.forMethodReturnType(method, factoryType));
         bd.setScope(scope);
         bd.setDependsOn(factoryBean);
+        if (registry instanceof BeanFactory) {
+            bd.setInstanceSupplier(LegacyInstanceSupplier.ofFactoryMethod((BeanFactory) registry, factoryBean, method));
+        }
         return bd;
     }
 }
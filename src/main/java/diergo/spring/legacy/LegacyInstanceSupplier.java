@@ -0,0 +1,245 @@
+package diergo.spring.legacy;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.ResolvableType;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * An instance supplier for legacy beans calling a method handle resolved once on first use,
+ * so creating a legacy bean costs about as much as accessing the member directly.
+ * The handle reads a static field, calls a static factory method or calls a factory method of a factory bean.
+ * A profiled supplier initializes the class accessed first and records both times to the profile.
+ * Suppliers created for a member already resolved provide its type as target type of the bean definition.
+ *
+ * @see AbstractBeanDefinition#setInstanceSupplier(Supplier)
+ */
+final class LegacyInstanceSupplier implements Supplier<Object> {
+
+    private static final MethodHandle GET_BEAN;
+
+    static {
+        try {
+            GET_BEAN = MethodHandles.publicLookup()
+                    .findVirtual(BeanFactory.class, "getBean", methodType(Object.class, String.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access bean factory", e);
+        }
+    }
+
+    private final String description;
+    private final Supplier<Class<?>> accessed;
+    private final Supplier<MethodHandle> resolver;
+    private final Member member;
+    private final String beanName;
+    private final LegacyBeanProfile profile;
+    private volatile MethodHandle handle;
+
+    private LegacyInstanceSupplier(String description, Supplier<Class<?>> accessed, Supplier<MethodHandle> resolver,
+                                   Member member) {
+        this(description, accessed, resolver, member, null, null);
+    }
+
+    private LegacyInstanceSupplier(String description, Supplier<Class<?>> accessed, Supplier<MethodHandle> resolver,
+                                   Member member, String beanName, LegacyBeanProfile profile) {
+        this.description = description;
+        this.accessed = accessed;
+        this.resolver = resolver;
+        this.member = member;
+        this.beanName = beanName;
+        this.profile = profile;
+    }
+
+    /**
+     * Read the static field of the bean class.
+     *
+     * @param access find the field in the bean class, may return {@code null} if missing
+     */
+    static LegacyInstanceSupplier ofField(AbstractBeanDefinition bd, String fieldName, Function<Class<?>, Field> access) {
+        String description = "static singleton field " + fieldName;
+        return new LegacyInstanceSupplier(description, () -> resolveBeanClass(bd, description), () -> {
+            Class<?> type = resolveBeanClass(bd, description);
+            Field field = access.apply(type);
+            if (field == null) {
+                throw new BeanCreationException("Missing " + description + " in " + type);
+            }
+            return unreflectGetter(field, description);
+        }, null);
+    }
+
+    /**
+     * Read the static field resolved already.
+     */
+    static LegacyInstanceSupplier ofField(Field field) {
+        String description = "static singleton field " + field.getName();
+        return new LegacyInstanceSupplier(description, field::getDeclaringClass,
+                () -> unreflectGetter(field, description), field);
+    }
+
+    /**
+     * Call the static factory method without parameters of the bean class.
+     *
+     * @param access find the method in the bean class, may return {@code null} if missing
+     */
+    static LegacyInstanceSupplier ofStaticMethod(AbstractBeanDefinition bd, String methodName, Function<Class<?>, Method> access) {
+        String description = "static factory method " + methodName;
+        return new LegacyInstanceSupplier(description, () -> resolveBeanClass(bd, description), () -> {
+            Class<?> type = resolveBeanClass(bd, description);
+            Method method = access.apply(type);
+            if (method == null) {
+                throw new BeanCreationException("Missing " + description + " in " + type);
+            }
+            return unreflect(method, description);
+        }, null);
+    }
+
+    /**
+     * Call the static factory method without parameters resolved already.
+     */
+    static LegacyInstanceSupplier ofStaticMethod(Method method) {
+        String description = "static factory method " + method.getName();
+        return new LegacyInstanceSupplier(description, method::getDeclaringClass,
+                () -> unreflect(method, description), method);
+    }
+
+    /**
+     * Call the factory method without parameters of the factory bean, which is retrieved from the bean factory on each call.
+     */
+    static LegacyInstanceSupplier ofFactoryMethod(BeanFactory beanFactory, String factoryBeanName, Method method) {
+        String description = "factory method " + method.getName() + " of bean " + factoryBeanName;
+        return new LegacyInstanceSupplier(description, method::getDeclaringClass, () -> {
+            MethodHandle factoryBean = MethodHandles.insertArguments(GET_BEAN.bindTo(beanFactory), 0, factoryBeanName);
+            MethodHandle factoryMethod = unreflect(method, description)
+                    .asType(methodType(Object.class, Object.class));
+            return MethodHandles.foldArguments(factoryMethod, factoryBean);
+        }, method);
+    }
+
+    /**
+     * Get the bean definition passed as root bean definition with the type of the member accessed by its instance
+     * supplier as target type including generics, so matching by type needs no introspection of factory methods.
+     * The definition passed is kept as originating definition, so scanners still detect conflicting bean names.
+     * Bean definitions without a legacy instance supplier of a resolved member are returned as they are.
+     */
+    static BeanDefinition withTargetType(BeanDefinition bd) {
+        Supplier<?> instanceSupplier = bd instanceof AbstractBeanDefinition
+                ? ((AbstractBeanDefinition) bd).getInstanceSupplier() : null;
+        Member resolved = instanceSupplier instanceof LegacyInstanceSupplier
+                ? ((LegacyInstanceSupplier) instanceSupplier).member : null;
+        if (resolved == null) {
+            return bd;
+        }
+        RootBeanDefinition rbd = new RootBeanDefinition();
+        rbd.overrideFrom(bd);
+        rbd.setOriginatingBeanDefinition(bd);
+        if (resolved instanceof Field) {
+            rbd.setTargetType(ResolvableType.forField((Field) resolved));
+        } else {
+            rbd.setTargetType(ResolvableType.forMethodReturnType((Method) resolved));
+            rbd.setResolvedFactoryMethod((Method) resolved);
+        }
+        return rbd;
+    }
+
+    /**
+     * Create a supplier of the same bean recording each creation to the profile.
+     */
+    LegacyInstanceSupplier profiledBy(String beanName, LegacyBeanProfile profile) {
+        return new LegacyInstanceSupplier(description, accessed, resolver, member, beanName, profile);
+    }
+
+    @Override
+    public Object get() {
+        return profile == null ? invoke(resolve()) : getProfiled();
+    }
+
+    /**
+     * Resolve the handle and initialize the class accessed before invoking it, measuring both separately.
+     */
+    private Object getProfiled() {
+        long allocated = profile.allocatedBytes();
+        long start = System.nanoTime();
+        MethodHandle resolved = resolve();
+        initialize(accessed.get());
+        long initialized = System.nanoTime();
+        Object bean = invoke(resolved);
+        long invoked = System.nanoTime();
+        long allocatedAfter = profile.allocatedBytes();
+        profile.record(beanName, description, initialized - start, invoked - initialized,
+                allocated < 0 ? -1 : allocatedAfter - allocated);
+        return bean;
+    }
+
+    private MethodHandle resolve() {
+        MethodHandle resolved = handle;
+        if (resolved == null) {
+            resolved = resolver.get().asType(methodType(Object.class));
+            handle = resolved;
+        }
+        return resolved;
+    }
+
+    private Object invoke(MethodHandle resolved) {
+        try {
+            return resolved.invokeExact();
+        } catch (BeanCreationException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new BeanCreationException("Cannot create bean using " + description, e);
+        }
+    }
+
+    private void initialize(Class<?> type) {
+        try {
+            Class.forName(type.getName(), true, type.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new BeanCreationException("Cannot create bean using " + description, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+
+    private static MethodHandle unreflectGetter(Field field, String description) {
+        ReflectionUtils.makeAccessible(field);
+        try {
+            return MethodHandles.lookup().unreflectGetter(field);
+        } catch (IllegalAccessException e) {
+            throw new BeanCreationException("Cannot create bean using " + description, e);
+        }
+    }
+
+    private static MethodHandle unreflect(Method method, String description) {
+        ReflectionUtils.makeAccessible(method);
+        try {
+            return MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new BeanCreationException("Cannot create bean using " + description, e);
+        }
+    }
+
+    private static Class<?> resolveBeanClass(AbstractBeanDefinition bd, String description) {
+        if (bd.hasBeanClass()) {
+            return bd.getBeanClass();
+        }
+        try {
+            return Class.forName(bd.getBeanClassName());
+        } catch (ClassNotFoundException e) {
+            throw new BeanCreationException("Cannot create bean using " + description, e);
+        }
+    }
+}
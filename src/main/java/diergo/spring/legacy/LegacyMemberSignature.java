@@ -0,0 +1,101 @@
+package diergo.spring.legacy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.FieldVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.asm.Type;
+import org.springframework.core.io.Resource;
+
+/**
+ * A field or method as declared in a class file, read without loading the class.
+ * Modifiers are the access flags of the class file which are compatible to {@link java.lang.reflect.Modifier}.
+ *
+ * @see MemberPredicates
+ * @see CustomizingTypeFilter#match(org.springframework.core.type.classreading.MetadataReader, org.springframework.core.type.classreading.MetadataReaderFactory)
+ */
+final class LegacyMemberSignature {
+
+    private final boolean field;
+    private final String name;
+    private final int modifiers;
+    private final Type type;
+    private final int parameterCount;
+
+    private LegacyMemberSignature(boolean field, String name, int modifiers, Type type, int parameterCount) {
+        this.field = field;
+        this.name = name;
+        this.modifiers = modifiers;
+        this.type = type;
+        this.parameterCount = parameterCount;
+    }
+
+    /**
+     * Read all fields and methods declared in the class file, constructors and static initializers are skipped.
+     */
+    static List<LegacyMemberSignature> read(Resource classFile) throws IOException {
+        List<LegacyMemberSignature> members = new ArrayList<>();
+        try (InputStream in = classFile.getInputStream()) {
+            new ClassReader(in).accept(new ClassVisitor(SpringAsmInfo.ASM_VERSION) {
+                @Override
+                public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+                    members.add(new LegacyMemberSignature(true, name, access, Type.getType(descriptor), 0));
+                    return null;
+                }
+
+                @Override
+                public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                    if (name.charAt(0) != '<') {
+                        members.add(new LegacyMemberSignature(false, name, access, Type.getReturnType(descriptor),
+                                Type.getArgumentTypes(descriptor).length));
+                    }
+                    return null;
+                }
+            }, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("Cannot read class file " + classFile, e);
+        }
+        return Collections.unmodifiableList(members);
+    }
+
+    boolean isField() {
+        return field;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getModifiers() {
+        return modifiers;
+    }
+
+    /**
+     * The name of the field type or method return type.
+     */
+    String getTypeName() {
+        return type.getClassName();
+    }
+
+    /**
+     * Whether the field type or method return type is a valid bean type. This excludes primitive types and arrays.
+     */
+    boolean hasBeanType() {
+        return type.getSort() == Type.OBJECT && !Void.class.getName().equals(type.getClassName());
+    }
+
+    int getParameterCount() {
+        return parameterCount;
+    }
+
+    @Override
+    public String toString() {
+        return (field ? "field " : "method ") + name;
+    }
+}
@@ -0,0 +1,56 @@
+package diergo.spring.legacy;
+
+import java.lang.reflect.Member;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Types and members resolved during a single scan, shared by all type filters of a post processor.
+ * Each class is resolved once and each filter searches for its member once, regardless of how often
+ * matching, support checks and customizing ask for it.
+ *
+ * @see CustomizingTypeFilter#useCache(LegacyScanCache)
+ * @see LegacyBeanRegistryPostProcessor
+ */
+class LegacyScanCache {
+
+    private final Map<String, Optional<Class<?>>> types = new ConcurrentHashMap<>();
+    private final Map<CustomizingTypeFilter<?>, Map<String, Optional<? extends Member>>> accesses = new ConcurrentHashMap<>();
+    private final Map<String, Optional<List<LegacyMemberSignature>>> members = new ConcurrentHashMap<>();
+
+    /**
+     * Resolve the type without initializing it.
+     *
+     * @see CustomizingTypeFilter#getType(String)
+     */
+    Optional<Class<?>> getType(String className) {
+        return types.computeIfAbsent(className, CustomizingTypeFilter::getType);
+    }
+
+    /**
+     * Get the members read from the class file, the reader is only called once per type.
+     */
+    Optional<List<LegacyMemberSignature>> getMembers(String className, Function<String, Optional<List<LegacyMemberSignature>>> reader) {
+        return members.computeIfAbsent(className, reader);
+    }
+
+    /**
+     * Get the members read from the class file while scanning, nothing if not read.
+     */
+    Optional<List<LegacyMemberSignature>> findMembers(String className) {
+        Optional<List<LegacyMemberSignature>> read = members.get(className);
+        return read == null ? Optional.empty() : read;
+    }
+
+    /**
+     * Get the member of the type found by the filter, the lookup is only called once per filter and type.
+     */
+    @SuppressWarnings("unchecked")
+    <T extends Member> Optional<T> getAccess(CustomizingTypeFilter<T> filter, String className, Function<String, Optional<T>> lookup) {
+        return (Optional<T>) accesses.computeIfAbsent(filter, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(className, lookup);
+    }
+}
@@ -0,0 +1,95 @@
+package diergo.spring.legacy;
+
+import static java.util.stream.Collectors.toList;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.core.type.ClassMetadata;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.PathMatcher;
+
+/**
+ * Post processors scanning together in a single walk of the class path. The union of their base packages is scanned
+ * once, base packages below others are not scanned again. Each independent class is matched against the type filters
+ * of all post processors with a base package covering it, sharing the types and members resolved by their filters.
+ *
+ * @see LegacyBeanRegistryPostProcessorBuilder#shareScanResults()
+ */
+final class LegacyScanGroup {
+
+    private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final List<LegacyBeanRegistryPostProcessor> processors;
+
+    LegacyScanGroup(List<LegacyBeanRegistryPostProcessor> processors) {
+        this.processors = processors;
+    }
+
+    /**
+     * Scan the base packages of all post processors using the scanner and share the beans found for each of them.
+     *
+     * @return the bean definitions found for the first post processor by their names
+     */
+    Map<String, BeanDefinition> scan(LegacyClassPathBeanDefinitionScanner scanner, ClassLoader classLoader) {
+        Map<LegacyBeanRegistryPostProcessor, Set<String>> matched = new LinkedHashMap<>();
+        Map<LegacyBeanRegistryPostProcessor, List<String>> covered = new LinkedHashMap<>();
+        processors.forEach(processor -> {
+            matched.put(processor, ConcurrentHashMap.newKeySet());
+            covered.put(processor, Stream.of(processor.getBasePackages())
+                    .map(basePackage -> ClassUtils.convertClassNameToResourcePath(basePackage) + "/**")
+                    .collect(toList()));
+        });
+        scanner.setScanState(null);
+        scanner.addIncludeFilter((metadataReader, metadataReaderFactory) -> {
+            ClassMetadata metadata = metadataReader.getClassMetadata();
+            if (metadata.isIndependent() && !metadata.isInterface()) {
+                String path = ClassUtils.convertClassNameToResourcePath(metadata.getClassName());
+                for (LegacyBeanRegistryPostProcessor processor : processors) {
+                    if (covered.get(processor).stream().anyMatch(pattern -> PATH_MATCHER.match(pattern, path))
+                            && processor.matches(metadataReader, metadataReaderFactory)) {
+                        matched.get(processor).add(metadata.getClassName());
+                    }
+                }
+            }
+            return false;
+        });
+        LegacyScanCache cache = new LegacyScanCache();
+        processors.forEach(processor -> processor.useScanCache(cache));
+        try {
+            scanner.scan(getBasePackages());
+            Map<String, BeanDefinition> first = null;
+            for (Map.Entry<LegacyBeanRegistryPostProcessor, Set<String>> processorMatched : matched.entrySet()) {
+                LegacyBeanRegistryPostProcessor processor = processorMatched.getKey();
+                Map<String, BeanDefinition> beanDefinitions = processor.createBeanDefinitions(processorMatched.getValue());
+                LegacyScanResults.put(classLoader, processor.getIndexKey(),
+                        LegacyBeanRegistryPostProcessor.createIndexEntries(beanDefinitions));
+                if (first == null) {
+                    first = beanDefinitions;
+                }
+            }
+            return first;
+        } finally {
+            processors.forEach(processor -> processor.useScanCache(null));
+        }
+    }
+
+    /**
+     * Get the distinct base packages of all post processors without those below another one.
+     */
+    String[] getBasePackages() {
+        List<String> basePackages = processors.stream()
+                .flatMap(processor -> Stream.of(processor.getBasePackages()))
+                .distinct()
+                .collect(toList());
+        return basePackages.stream()
+                .filter(basePackage -> basePackages.stream()
+                        .noneMatch(other -> !PATH_MATCHER.isPattern(other) && basePackage.startsWith(other + '.')))
+                .toArray(String[]::new);
+    }
+}
@@ -0,0 +1,174 @@
+package diergo.spring.legacy;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * A file containing the legacy beans found by scanning, so the next start can register them without scanning.
+ * The beans are stored together with a fingerprint of the scan: the configuration of the post processor and the class
+ * path roots of the base packages. JAR files are fingerprinted by path, size and modification time, directories by the
+ * relative path, size and modification time of each file below. If some root cannot be fingerprinted, e.g. a JAR file
+ * nested in another one, there is no fingerprint and the base packages are scanned.
+ * The file is written in a compact binary format and replaced atomically if possible.
+ *
+ * @see LegacyBeanRegistryPostProcessorBuilder#cacheScanResults(Path)
+ */
+final class LegacyScanResultCache {
+
+    private static final Log LOG = LogFactory.getLog(LegacyScanResultCache.class);
+    private static final int FORMAT = 0x4c534301;
+
+    private final Path file;
+
+    LegacyScanResultCache(Path file) {
+        this.file = file.toAbsolutePath();
+    }
+
+    /**
+     * Create the fingerprint of scanning the base packages with the configuration passed.
+     *
+     * @param configuration the configuration of the post processor, the same in every JVM
+     * @return the fingerprint or nothing if the class path roots of the base packages cannot be fingerprinted
+     * @see LegacyBeanIndex#key(String[], List, org.springframework.beans.factory.support.BeanNameGenerator)
+     */
+    Optional<String> fingerprint(ResourcePatternResolver resolver, String[] basePackages, String configuration) {
+        MessageDigest digest = createDigest();
+        update(digest, configuration);
+        try {
+            for (String basePackage : basePackages) {
+                String packageRootPath = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX
+                        + ClassUtils.convertClassNameToResourcePath(basePackage) + '/';
+                for (Resource root : resolver.getResources(packageRootPath)) {
+                    updateRoot(digest, root);
+                }
+            }
+        } catch (IOException e) {
+            LOG.debug("Cannot fingerprint the class path for legacy scan result cache " + file, e);
+            return Optional.empty();
+        }
+        StringBuilder fingerprint = new StringBuilder();
+        for (byte b : digest.digest()) {
+            fingerprint.append(String.format("%02x", b));
+        }
+        return Optional.of(fingerprint.toString());
+    }
+
+    /**
+     * Read the beans cached with exactly the fingerprint passed.
+     *
+     * @return the entries or nothing if the file is missing, unreadable or has been written for another fingerprint
+     */
+    Optional<List<LegacyBeanIndex.Entry>> load(String fingerprint) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FORMAT || !fingerprint.equals(in.readUTF())) {
+                return Optional.empty();
+            }
+            int size = in.readInt();
+            List<LegacyBeanIndex.Entry> entries = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                entries.add(LegacyBeanIndex.Entry.read(in));
+            }
+            return Optional.of(entries);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException | IllegalArgumentException e) {
+            LOG.debug("Ignoring unreadable legacy scan result cache " + file, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Write the beans with the fingerprint, failures are logged only as the beans can be scanned again.
+     */
+    void save(String fingerprint, List<LegacyBeanIndex.Entry> entries) {
+        try {
+            Path directory = file.getParent();
+            if (directory == null) {
+                throw new IOException("No directory to write to");
+            }
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "legacy-scan", ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    out.writeInt(FORMAT);
+                    out.writeUTF(fingerprint);
+                    out.writeInt(entries.size());
+                    for (LegacyBeanIndex.Entry entry : entries) {
+                        entry.write(out);
+                    }
+                }
+                move(temp);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            LOG.warn("Cannot write legacy scan result cache " + file, e);
+        }
+    }
+
+    private void move(Path temp) throws IOException {
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void updateRoot(MessageDigest digest, Resource root) throws IOException {
+        URL url = root.getURL();
+        update(digest, url.toString());
+        if (ResourceUtils.isJarURL(url)) {
+            File jar = ResourceUtils.getFile(ResourceUtils.extractArchiveURL(url));
+            update(digest, jar.length() + ":" + jar.lastModified());
+        } else if (ResourceUtils.isFileURL(url)) {
+            Path directory = root.getFile().toPath();
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.filter(Files::isRegularFile)
+                        .sorted()
+                        .forEach(path -> {
+                            File classFile = path.toFile();
+                            update(digest, directory.relativize(path) + ":" + classFile.length() + ":" + classFile.lastModified());
+                        });
+            }
+        } else {
+            update(digest, root.contentLength() + ":" + root.lastModified());
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not supported", e);
+        }
+    }
+}
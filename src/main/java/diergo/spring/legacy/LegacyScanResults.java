@@ -0,0 +1,42 @@
+package diergo.spring.legacy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * The legacy beans found by scanning, shared by all post processors in the JVM with the same configuration.
+ * The results are kept per class loader used for scanning, identified by the configuration of the post processor.
+ *
+ * @see LegacyBeanIndex#key(String[], List, org.springframework.beans.factory.support.BeanNameGenerator)
+ * @see LegacyBeanRegistryPostProcessorBuilder#shareScanResults()
+ */
+final class LegacyScanResults {
+
+    private static final ConcurrentMap<ClassLoader, Map<String, List<LegacyBeanIndex.Entry>>> RESULTS = new ConcurrentReferenceHashMap<>();
+
+    private LegacyScanResults() {
+    }
+
+    static Optional<List<LegacyBeanIndex.Entry>> get(ClassLoader classLoader, String key) {
+        Map<String, List<LegacyBeanIndex.Entry>> results = RESULTS.get(classLoader);
+        return results == null ? Optional.empty() : Optional.ofNullable(results.get(key));
+    }
+
+    static void put(ClassLoader classLoader, String key, List<LegacyBeanIndex.Entry> entries) {
+        RESULTS.computeIfAbsent(classLoader, loader -> new ConcurrentHashMap<>())
+                .put(key, Collections.unmodifiableList(new ArrayList<>(entries)));
+    }
+
+    /**
+     * Drop all results, e.g. after the class path changed.
+     */
+    static void clear() {
+        RESULTS.clear();
+    }
+}
@@ -0,0 +1,125 @@
+package diergo.spring.legacy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.core.io.Resource;
+import org.springframework.util.DigestUtils;
+
+/**
+ * The class files seen by previous scans with the same configuration in this JVM, so rescanning on a restart only
+ * reads and evaluates the class files changed or added since. For each class file the size, modification time,
+ * content hash and whether it has been a candidate are remembered. A class file with another size or modification
+ * time but the same content hash is not evaluated again. Class files not seen by a scan are forgotten afterwards.
+ * A class is evaluated again only if its own class file changed, not if one of the classes it depends on changed.
+ * The states of the configurations scanned last are kept only, so configurations not scanned anymore are forgotten.
+ *
+ * @see LegacyClassPathBeanDefinitionScanner#setScanState(LegacyScanState)
+ */
+final class LegacyScanState {
+
+    private static final int MAX_STATES = 16;
+    private static final Map<String, LegacyScanState> STATES = new LinkedHashMap<String, LegacyScanState>(MAX_STATES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, LegacyScanState> eldest) {
+            return size() > MAX_STATES;
+        }
+    };
+
+    private final Map<String, ClassFile> classFiles = new ConcurrentHashMap<>();
+    private final AtomicLong scans = new AtomicLong();
+
+    /**
+     * Get the state of scanning with the configuration passed, which has to be the same in every JVM and after
+     * reloading the configuration by another class loader.
+     *
+     * @see LegacyBeanIndex#key(String[], java.util.List, org.springframework.beans.factory.support.BeanNameGenerator)
+     */
+    static LegacyScanState forScan(String configuration) {
+        synchronized (STATES) {
+            return STATES.computeIfAbsent(configuration, key -> new LegacyScanState());
+        }
+    }
+
+    /**
+     * Start a scan, the number returned has to be passed to all other calls.
+     */
+    long startScan() {
+        return scans.incrementAndGet();
+    }
+
+    /**
+     * Check whether the class file is a candidate, evaluating it only if changed since the last scan.
+     *
+     * @return the result of the evaluation or of the previous evaluation if the class file has not changed
+     */
+    boolean isCandidate(long scan, Resource classFile, Evaluation evaluation) throws IOException {
+        String key = classFile.getURL().toString();
+        long size = classFile.contentLength();
+        long modified = classFile.lastModified();
+        ClassFile previous = classFiles.get(key);
+        if (previous != null && previous.size == size && previous.modified == modified) {
+            classFiles.put(key, previous.seen(scan, size, modified));
+            return previous.candidate;
+        }
+        byte[] hash = hash(classFile);
+        if (previous != null && Arrays.equals(previous.hash, hash)) {
+            classFiles.put(key, previous.seen(scan, size, modified));
+            return previous.candidate;
+        }
+        boolean candidate = evaluation.isCandidate();
+        classFiles.put(key, new ClassFile(scan, size, modified, hash, candidate));
+        return candidate;
+    }
+
+    /**
+     * Forget the class files not seen by the scan finished, they have been removed.
+     */
+    void endScan(long scan) {
+        classFiles.values().removeIf(classFile -> classFile.scan < scan);
+    }
+
+    int size() {
+        return classFiles.size();
+    }
+
+    private static byte[] hash(Resource classFile) throws IOException {
+        try (InputStream in = classFile.getInputStream()) {
+            return DigestUtils.md5Digest(in);
+        }
+    }
+
+    /**
+     * Evaluates a class file changed.
+     */
+    @FunctionalInterface
+    interface Evaluation {
+
+        boolean isCandidate() throws IOException;
+    }
+
+    private static final class ClassFile {
+
+        final long scan;
+        final long size;
+        final long modified;
+        final byte[] hash;
+        final boolean candidate;
+
+        ClassFile(long scan, long size, long modified, byte[] hash, boolean candidate) {
+            this.scan = scan;
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+            this.candidate = candidate;
+        }
+
+        ClassFile seen(long scan, long size, long modified) {
+            return new ClassFile(scan, size, modified, hash, candidate);
+        }
+    }
+}
@@ -8,9 +8,10 @@ import java.lang.reflect.Field;
 import java.util.Optional;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
-import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.core.Conventions;
+import org.springframework.util.ReflectionUtils;
 
 /**
  * A type filter creating bean definitions for fields with a valid bean type.
@@ -20,6 +21,11 @@ import org.springframework.beans.factory.support.AbstractBeanDefinition;
  */
 class LegacySingletonFieldFilter extends CustomizingTypeFilter<Field> {
 
+    /**
+     * The name of the bean definition attribute containing the name of the static singleton field.
+     */
+    static final String FIELD_ATTRIBUTE = Conventions.getQualifiedAttributeName(LegacySingletonFieldFilter.class, "field");
+
     LegacySingletonFieldFilter(Predicate<? super Field> accessCheck) {
         super(withBeanType().and(accessCheck));
     }
@@ -29,25 +35,56 @@ class LegacySingletonFieldFilter extends CustomizingTypeFilter<Field> {
         return super.supports(bd) && bd instanceof AbstractBeanDefinition;
     }
 
+    /**
+     * Look up the fields by name if the check allows some names only, otherwise check all declared fields.
+     */
     @Override
     protected Optional<Field> getAccess(Class<?> type) {
-        return Stream.of(type.getDeclaredFields())
+        return MemberPredicates.names(accessCheck)
+                .map(names -> names.stream()
+                        .map(name -> getDeclaredField(type, name))
+                        .filter(Optional::isPresent)
+                        .map(Optional::get))
+                .orElseGet(() -> Stream.of(type.getDeclaredFields()))
                 .filter(withType(type).and(accessCheck))
                 .findFirst();
     }
 
+    @Override
+    protected boolean isAccessKind(LegacyMemberSignature member) {
+        return member.isField();
+    }
+
     @Override
     protected void customizeBeanDefinition(Field access, BeanDefinition bd) {
+        customizeBeanDefinition((AbstractBeanDefinition) bd, access.getName(), LegacyInstanceSupplier.ofField(access));
+    }
+
+    @Override
+    public String toString() {
+        return "singleton fields " + accessCheck;
+    }
+
+    private static Optional<Field> getDeclaredField(Class<?> type, String name) {
+        try {
+            return Optional.of(type.getDeclaredField(name));
+        } catch (NoSuchFieldException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Customize the bean definition to get the singleton from the static field of the bean class.
+     */
+    static void customizeBeanDefinition(AbstractBeanDefinition bd, String fieldName) {
+        customizeBeanDefinition(bd, fieldName,
+                LegacyInstanceSupplier.ofField(bd, fieldName, type -> ReflectionUtils.findField(type, fieldName)));
+    }
+
+    private static void customizeBeanDefinition(AbstractBeanDefinition bd, String fieldName, LegacyInstanceSupplier instanceSupplier) {
         bd.setScope(SCOPE_SINGLETON);
         bd.setLazyInit(true);
-        AbstractBeanDefinition adb = (AbstractBeanDefinition) bd;
-        adb.setInstanceSupplier(() -> {
-            access.setAccessible(true);
-            try {
-                return access.get(adb.hasBeanClass() ? adb.getBeanClass() : Class.forName(adb.getBeanClassName()));
-            } catch (IllegalAccessException | ClassNotFoundException e) {
-                throw new BeanCreationException("Cannot create bean using static singleton field " + access, e);
-            }
-        });
+        bd.setAttribute(FIELD_ATTRIBUTE, fieldName);
+        bd.setInstanceSupplier(instanceSupplier);
     }
 }
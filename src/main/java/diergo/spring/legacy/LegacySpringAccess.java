@@ -1,66 +1,487 @@
 package diergo.spring.legacy;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import org.springframework.aop.TargetSource;
 import org.springframework.aop.framework.ProxyFactory;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.beans.factory.config.NamedBeanHolder;
 import org.springframework.context.ApplicationContextException;
+import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.util.ClassUtils;
 
 /**
  * Support access to Spring beans from outside an application context.
  * Import this configuration from one of your configuration classes before using it.
+ * Each context is used by callers having its bean class loader or a child of it as thread context class loader,
+ * the first context started is used by all other callers. A context can be bound to a thread explicitly, e.g. for
+ * tenant contexts sharing a class loader. Contexts and proxies are kept per class loader until the context is destroyed.
  *
  * @see org.springframework.context.annotation.Import
  * @since 1.0
  */
 @Configuration
-public class LegacySpringAccess implements BeanFactoryAware, DisposableBean {
+public class LegacySpringAccess implements BeanFactoryAware, DisposableBean, ApplicationListener<ContextRefreshedEvent> {
 
-    private static final AtomicReference<BeanFactory> BEAN_FACTORY_HOLDER = new AtomicReference<>();
+    private static final ConcurrentMap<ClassLoader, Context> CONTEXTS = new ConcurrentHashMap<>();
+    private static final AtomicReference<Context> DEFAULT_CONTEXT = new AtomicReference<>();
+    private static final ThreadLocal<Context> THREAD_CONTEXT = new ThreadLocal<>();
+    private static final ConcurrentMap<ClassLoader, ConcurrentMap<Class<?>, Object>> EARLY_PROXIES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<ClassLoader, ConcurrentMap<Class<?>, LegacyBeanHandle<?>>> HANDLES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<ClassLoader, Queue<Consumer<Context>>> PENDING = new ConcurrentHashMap<>();
+
+    private Context context;
 
     /**
      * Get unique bean from Spring factory.
      * This is a way to access Spring beans from legacy code where you cannot use DI.
      * Calling before context started will return a proxy delegating to the context if available.
+     * All calls for the same type and thread context class loader share one proxy until the context is destroyed.
      * Do not use such proxies from constructor code!
+     * Singletons are cached per context and type until the context is refreshed or destroyed, other scopes are always
+     * retrieved from the context.
      */
     @SuppressWarnings("unchecked")
     public static <T> T getSpringBean(Class<T> type) {
-        BeanFactory context = BEAN_FACTORY_HOLDER.get();
+        Context context = THREAD_CONTEXT.get();
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (context == null) {
+            context = findContext(classLoader);
+        }
         if (context == null) {
-            return (T) ProxyFactory.getProxy(new DelegatingTargetSource<>(type));
+            return (T) EARLY_PROXIES.computeIfAbsent(classLoader, loader -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(type, key -> createProxy(key, classLoader));
+        }
+        Object singleton = context.singletons.get(type);
+        if (singleton != null) {
+            return (T) singleton;
         }
         return context.getBean(type);
     }
 
     /**
-     * Inject the bean factory to be used for legacy bean resolving.
+     * Get a handle of the unique bean to be kept by legacy code. Calling the handle is cheaper than
+     * {@link #getSpringBean(Class)} and than proxies, as a singleton is pinned once the context has been refreshed.
+     * The context is selected by the thread context class loader of the caller creating the handle, ignoring contexts
+     * bound to threads. All calls for the same type and thread context class loader share one handle, handles are kept
+     * per class loader until the context of the class loader is destroyed.
+     *
+     * @since 1.1
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> LegacyBeanHandle<T> handle(Class<T> type) {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return (LegacyBeanHandle<T>) HANDLES.computeIfAbsent(classLoader, loader -> new ConcurrentHashMap<>())
+                .computeIfAbsent(type, key -> new LegacyBeanHandle<>(key, classLoader));
+    }
+
+    /**
+     * Resolve the bean of the handle, pinning singletons of a context refreshed. A singleton is released again if the
+     * context has been refreshed or destroyed while resolving, as the handles may have been released before the pin.
+     * A handle kept by a caller after its context has been destroyed is registered again to be pinned, so it is
+     * released on the next refresh, or not pinned if another handle has been registered for its type meanwhile.
+     */
+    static <T> T resolve(LegacyBeanHandle<T> handle) {
+        Context context = findContext(handle.getClassLoader());
+        if (context == null) {
+            throw new ApplicationContextException("Spring application context not started");
+        }
+        int generation = context.generation.get();
+        T bean = context.getBean(handle.getType());
+        if (context.ready && context.singletons.get(handle.getType()) == bean && register(handle)) {
+            handle.pin(bean, context);
+            if (context.generation.get() != generation) {
+                handle.release(context);
+            }
+        }
+        return bean;
+    }
+
+    private static boolean register(LegacyBeanHandle<?> handle) {
+        LegacyBeanHandle<?> registered = HANDLES.computeIfAbsent(handle.getClassLoader(), loader -> new ConcurrentHashMap<>())
+                .putIfAbsent(handle.getType(), handle);
+        return registered == null || registered == handle;
+    }
+
+    /**
+     * Whether handles are kept for the class loader.
+     */
+    static boolean hasHandles(ClassLoader classLoader) {
+        return HANDLES.containsKey(classLoader);
+    }
+
+    private static void releaseHandles(Context context) {
+        HANDLES.values().forEach(handles -> handles.values().forEach(handle -> handle.release(context)));
+    }
+
+    /**
+     * Get the bean of the name passed from Spring factory.
+     * Calling before context started fails.
+     * Singletons are cached per context and name until the context is refreshed or destroyed.
+     *
+     * @see #getSpringBean(Class)
+     * @since 1.1
+     */
+    public static <T> T getSpringBean(String name, Class<T> type) {
+        return getStartedContext().getBean(name, type);
+    }
+
+    /**
+     * Get all beans of the type passed from Spring factory and its ancestors by their names.
+     * Calling before context started fails.
+     * If all beans are singletons, the unmodifiable result is cached per context and type until the context is
+     * refreshed or destroyed.
+     *
+     * @since 1.1
+     */
+    public static <T> Map<String, T> getSpringBeansOfType(Class<T> type) {
+        return getStartedContext().getBeansOfType(type);
+    }
+
+    /**
+     * Get unique beans of all types passed from Spring factory at once.
+     * Calling before context started fails. Singletons are cached like for {@link #getSpringBean(Class)}.
+     *
+     * @return an unmodifiable map of the beans by the types passed
+     * @since 1.1
+     */
+    public static Map<Class<?>, Object> getSpringBeans(Class<?>... types) {
+        Context context = getStartedContext();
+        Map<Class<?>, Object> beans = new LinkedHashMap<>();
+        for (Class<?> type : types) {
+            Object singleton = context.singletons.get(type);
+            beans.put(type, singleton == null ? context.getBean(type) : singleton);
+        }
+        return Collections.unmodifiableMap(beans);
+    }
+
+    /**
+     * Get unique bean from Spring factory as soon as the context has been refreshed.
+     * This allows legacy code to start in parallel to the context without using proxies.
+     * The future is completed by the thread refreshing the context or immediately if already refreshed,
+     * failing if the bean cannot be retrieved or the context is destroyed before being refreshed.
+     *
+     * @see #getSpringBean(Class)
+     * @since 1.1
+     */
+    public static <T> CompletableFuture<T> getSpringBeanAsync(Class<T> type) {
+        CompletableFuture<T> bean = new CompletableFuture<>();
+        whenReady(context -> {
+            if (context == null) {
+                bean.completeExceptionally(new ApplicationContextException("Spring application context destroyed before refresh"));
+                return;
+            }
+            try {
+                bean.complete(context.getBean(type));
+            } catch (RuntimeException e) {
+                bean.completeExceptionally(e);
+            }
+        });
+        return bean;
+    }
+
+    /**
+     * Call back with the bean factory as soon as the context has been refreshed, by the thread refreshing the context
+     * or immediately if already refreshed. The callback is called once only and should not throw any exception.
+     * It is dropped if the context is destroyed before being refreshed.
+     *
+     * @see #getSpringBeanAsync(Class)
+     * @since 1.1
+     */
+    public static void onReady(Consumer<BeanFactory> callback) {
+        whenReady(context -> {
+            if (context != null) {
+                callback.accept(context.beanFactory);
+            }
+        });
+    }
+
+    /**
+     * Call back with the context used by the current thread when refreshed or with {@code null} when destroyed before.
+     * Callbacks are queued per class loader and checked again after queueing, so a concurrent refresh does not miss
+     * them. Queues are removed once called back, so class loaders are not kept.
+     */
+    private static void whenReady(Consumer<Context> callback) {
+        Context context = THREAD_CONTEXT.get();
+        if (context == null) {
+            context = findContext(Thread.currentThread().getContextClassLoader());
+        }
+        if (context != null && context.ready) {
+            callback.accept(context);
+            return;
+        }
+        ClassLoader classLoader = context == null ? Thread.currentThread().getContextClassLoader() : context.classLoader;
+        PENDING.compute(classLoader, (loader, callbacks) -> {
+            Queue<Consumer<Context>> queue = callbacks == null ? new ConcurrentLinkedQueue<>() : callbacks;
+            queue.add(callback);
+            return queue;
+        });
+        Context found = findContext(classLoader);
+        if (found != null && found.ready) {
+            callPending(classLoader, found);
+        }
+    }
+
+    private static void callPending(ClassLoader classLoader, Context context) {
+        Queue<Consumer<Context>> callbacks = PENDING.get(classLoader);
+        if (callbacks != null) {
+            for (Consumer<Context> callback = callbacks.poll(); callback != null; callback = callbacks.poll()) {
+                callback.accept(context);
+            }
+            PENDING.computeIfPresent(classLoader, (loader, queue) -> queue.isEmpty() ? null : queue);
+        }
+    }
+
+    /**
+     * Use the context of the bean factory passed for all calls of the current thread, regardless of the thread
+     * context class loader, until unbound.
+     *
+     * @see #unbindFromThread()
+     * @since 1.1
+     */
+    public static void bindToThread(BeanFactory beanFactory) {
+        Context bound = CONTEXTS.values().stream()
+                .filter(context -> context.beanFactory == beanFactory)
+                .findFirst()
+                .orElseGet(() -> new Context(beanFactory, getBeanClassLoader(beanFactory)));
+        if (!CONTEXTS.containsValue(bound)) {
+            bound.ready = true;
+        }
+        THREAD_CONTEXT.set(bound);
+    }
+
+    /**
+     * Stop using the context bound to the current thread.
+     *
+     * @see #bindToThread(BeanFactory)
+     * @since 1.1
+     */
+    public static void unbindFromThread() {
+        THREAD_CONTEXT.remove();
+    }
+
+    private static Context getStartedContext() {
+        Context context = THREAD_CONTEXT.get();
+        if (context == null) {
+            context = findContext(Thread.currentThread().getContextClassLoader());
+        }
+        if (context == null) {
+            throw new ApplicationContextException("Spring application context not started");
+        }
+        return context;
+    }
+
+    /**
+     * Find the context of the class loader or one of its parents, using the first context started as fallback.
+     */
+    private static Context findContext(ClassLoader classLoader) {
+        for (ClassLoader loader = classLoader; loader != null; loader = loader.getParent()) {
+            Context context = CONTEXTS.get(loader);
+            if (context != null) {
+                return context;
+            }
+        }
+        return DEFAULT_CONTEXT.get();
+    }
+
+    /**
+     * Create a frozen proxy without advices, so calls are dispatched directly to the target once resolved.
+     */
+    private static Object createProxy(Class<?> type, ClassLoader classLoader) {
+        ProxyFactory proxyFactory = new ProxyFactory();
+        proxyFactory.setTargetSource(new DelegatingTargetSource<>(type, classLoader));
+        if (type.isInterface()) {
+            proxyFactory.addInterface(type);
+        } else {
+            proxyFactory.setProxyTargetClass(true);
+        }
+        proxyFactory.setFrozen(true);
+        return proxyFactory.getProxy(type.getClassLoader());
+    }
+
+    private static ClassLoader getBeanClassLoader(BeanFactory beanFactory) {
+        ClassLoader classLoader = beanFactory instanceof ConfigurableBeanFactory
+                ? ((ConfigurableBeanFactory) beanFactory).getBeanClassLoader() : null;
+        return classLoader == null ? ClassUtils.getDefaultClassLoader() : classLoader;
+    }
+
+    /**
+     * Inject the bean factory to be used for legacy bean resolving by callers of its bean class loader.
+     * Another bean factory of the same class loader started before is kept. Injecting the same bean factory again,
+     * as done for configuration classes, is ignored.
      * @see #getSpringBean(Class)
      */
     @Override
     public void setBeanFactory(BeanFactory beanFactory) {
-        BEAN_FACTORY_HOLDER.compareAndSet(null, beanFactory);
+        if (context != null && context.beanFactory == beanFactory) {
+            return;
+        }
+        context = new Context(beanFactory, getBeanClassLoader(beanFactory));
+        CONTEXTS.putIfAbsent(context.classLoader, context);
+        DEFAULT_CONTEXT.compareAndSet(null, context);
     }
 
     /**
-     * Remove the bean factory used for legacy bean resolving.
+     * Remove the bean factory used for legacy bean resolving and release its cached beans and the proxies and handles
+     * of all class loaders using it. Callers still waiting for the context are called back as
+     * destroyed.
+     * Without a bean factory, the proxies of the thread context class loader are released.
      * @see #getSpringBean(Class)
      */
     @Override
     public void destroy() {
-        BEAN_FACTORY_HOLDER.set(null);
+        if (context == null) {
+            EARLY_PROXIES.remove(Thread.currentThread().getContextClassLoader());
+            return;
+        }
+        context.destroyed = true;
+        context.ready = false;
+        context.generation.incrementAndGet();
+        releaseHandles(context);
+        HANDLES.keySet().removeIf(classLoader -> findContext(classLoader) == context);
+        EARLY_PROXIES.keySet().removeIf(classLoader -> findContext(classLoader) == context);
+        for (ClassLoader classLoader : PENDING.keySet()) {
+            if (findContext(classLoader) == context) {
+                callPending(classLoader, null);
+            }
+        }
+        CONTEXTS.remove(context.classLoader, context);
+        DEFAULT_CONTEXT.compareAndSet(context, null);
+        EARLY_PROXIES.remove(context.classLoader);
+        context.clear();
+        context = null;
+    }
+
+    /**
+     * Forget the singletons cached and release the handles pinning them, as they may have been replaced by the refresh.
+     * Call back all callers waiting for this context. Refreshes of other contexts, e.g. children, are ignored.
+     * @see #getSpringBean(Class)
+     * @see #onReady(Consumer)
+     */
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (context != null && event.getApplicationContext().getAutowireCapableBeanFactory() == context.beanFactory) {
+            context.ready = false;
+            context.generation.incrementAndGet();
+            context.clear();
+            releaseHandles(context);
+            context.ready = true;
+            for (ClassLoader classLoader : PENDING.keySet()) {
+                if (findContext(classLoader) == context) {
+                    callPending(classLoader, context);
+                }
+            }
+        }
+    }
+
+    /**
+     * A bean factory, whether it has been refreshed, its generation counting refreshes and destruction, and the
+     * singletons retrieved from it by type, by name and all of a type.
+     */
+    private static final class Context {
+
+        final BeanFactory beanFactory;
+        final ClassLoader classLoader;
+        final ConcurrentMap<Class<?>, Object> singletons = new ConcurrentHashMap<>();
+        final ConcurrentMap<String, Object> namedSingletons = new ConcurrentHashMap<>();
+        final ConcurrentMap<Class<?>, Map<String, ?>> singletonsOfType = new ConcurrentHashMap<>();
+        final AtomicInteger generation = new AtomicInteger();
+        volatile boolean ready;
+        volatile boolean destroyed;
+
+        Context(BeanFactory beanFactory, ClassLoader classLoader) {
+            this.beanFactory = beanFactory;
+            this.classLoader = classLoader;
+        }
+
+        <T> T getBean(Class<T> type) {
+            if (!(beanFactory instanceof AutowireCapableBeanFactory)) {
+                return beanFactory.getBean(type);
+            }
+            NamedBeanHolder<T> bean = ((AutowireCapableBeanFactory) beanFactory).resolveNamedBean(type);
+            if (beanFactory.isSingleton(bean.getBeanName())) {
+                singletons.putIfAbsent(type, bean.getBeanInstance());
+                if (destroyed) {
+                    singletons.clear();
+                }
+            }
+            return bean.getBeanInstance();
+        }
+
+        <T> T getBean(String name, Class<T> type) {
+            Object singleton = namedSingletons.get(name);
+            if (type.isInstance(singleton)) {
+                return type.cast(singleton);
+            }
+            T bean = beanFactory.getBean(name, type);
+            if (beanFactory.isSingleton(name)) {
+                namedSingletons.putIfAbsent(name, bean);
+                if (destroyed) {
+                    namedSingletons.clear();
+                }
+            }
+            return bean;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> Map<String, T> getBeansOfType(Class<T> type) {
+            Map<String, ?> cached = singletonsOfType.get(type);
+            if (cached != null) {
+                return (Map<String, T>) cached;
+            }
+            if (!(beanFactory instanceof ListableBeanFactory)) {
+                throw new ApplicationContextException("Spring bean factory cannot list beans of type " + type.getName());
+            }
+            Map<String, T> beans = Collections.unmodifiableMap(new LinkedHashMap<>(
+                    BeanFactoryUtils.beansOfTypeIncludingAncestors((ListableBeanFactory) beanFactory, type)));
+            if (beans.keySet().stream().allMatch(beanFactory::isSingleton)) {
+                Map<String, ?> concurrent = singletonsOfType.putIfAbsent(type, beans);
+                if (destroyed) {
+                    singletonsOfType.clear();
+                }
+                if (concurrent != null) {
+                    return (Map<String, T>) concurrent;
+                }
+            }
+            return beans;
+        }
+
+        void clear() {
+            singletons.clear();
+            namedSingletons.clear();
+            singletonsOfType.clear();
+        }
     }
 
+    /**
+     * Resolves the target once from the context and pins it, concurrent first calls wait for the resolution.
+     */
     private static class DelegatingTargetSource<T> implements TargetSource {
 
         private final Class<T> type;
-        private T target;
+        private final ClassLoader classLoader;
+        private volatile T target;
 
-        private DelegatingTargetSource(Class<T> type) {
+        private DelegatingTargetSource(Class<T> type, ClassLoader classLoader) {
             this.type = type;
+            this.classLoader = classLoader;
         }
 
         @Override
@@ -75,10 +496,17 @@ public class LegacySpringAccess implements BeanFactoryAware, DisposableBean {
 
         @Override
         public T getTarget() {
-            if (target == null) {
-                target = getFromContext();
+            T resolved = target;
+            if (resolved == null) {
+                synchronized (this) {
+                    resolved = target;
+                    if (resolved == null) {
+                        resolved = getFromContext();
+                        target = resolved;
+                    }
+                }
             }
-            return target;
+            return resolved;
         }
 
         @Override
@@ -87,12 +515,11 @@ public class LegacySpringAccess implements BeanFactoryAware, DisposableBean {
         }
 
         private T getFromContext() {
-            return BEAN_FACTORY_HOLDER.updateAndGet(old -> {
-                if (old != null) {
-                    return old;
-                }
+            Context context = findContext(classLoader);
+            if (context == null) {
                 throw new ApplicationContextException("Spring application context not started");
-            }).getBean(type);
+            }
+            return context.getBean(type);
         }
     }
 }
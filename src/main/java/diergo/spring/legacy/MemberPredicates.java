@@ -1,110 +1,123 @@
 package diergo.spring.legacy;
 
-import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 
 /**
  * Predicates to filter methods and fields.
+ * Except for type checks all predicates are able to check members from class file metadata, too.
+ * The predicates describe themselves by {@link Object#toString()}, other predicates combined with them are described as
+ * custom, so the description is the same in every JVM. Combining them using {@link Predicate#and(Predicate)} results in
+ * a single check with all modifier checks folded into one, names looked up in a set and cheap checks first.
  *
  * @see LegacyBeanRegistryPostProcessorBuilder
  */
 public final class MemberPredicates {
 
-    private static final Pattern GETTERS = Pattern.compile("get[A-Z].+");
-    private static final Pattern CONSTANTS = Pattern.compile("[A-Z][A-Z0-9_]+");
-
     /**
      * Allow any members.
      */
     public static <T extends Member> Predicate<T> all() {
-        return member -> true;
+        return new MemberCheck<T>(Kind.ANY, "any", member -> true, signature -> true, true);
     }
 
     /**
      * Allow members declared on type level aka static.
      */
     public static <T extends Member> Predicate<T> atClass() {
-        return member -> Modifier.isStatic(member.getModifiers());
+        return withModifiers(Modifier.STATIC, 0);
     }
 
     /**
      * Allow members declared on instance level aka non static.
      */
     public static <T extends Member> Predicate<T> atInstance() {
-        return member -> !Modifier.isStatic(member.getModifiers());
+        return withModifiers(0, Modifier.STATIC);
     }
 
     /**
      * Allow members declared visible aka non private.
      */
     public static <T extends Member> Predicate<T> visible() {
-        return member -> !Modifier.isPrivate(member.getModifiers());
+        return withModifiers(0, Modifier.PRIVATE);
     }
 
     /**
      * Allow members having any of the passed names.
      */
     public static <T extends Member> Predicate<T> named(String... names) {
-        return member -> asList(names).contains(member.getName());
+        return withNames(new LinkedHashSet<>(Arrays.asList(names)));
     }
 
     /**
      * Allow members having a name matching the pattern.
      */
     public static <T extends Member> Predicate<T> named(Pattern name) {
-        return member -> name.matcher(member.getName()).matches();
+        return withName("named like " + name.pattern(), candidate -> name.matcher(candidate).matches());
     }
 
     /**
      * Allow fields with the specified type or a subtype.
      */
     public static Predicate<Field> withType(Class<?> type) {
-        return field -> type.isAssignableFrom(field.getType());
+        return new MemberCheck<Field>(Kind.TYPE, "with type " + type.getName(),
+                field -> type.isAssignableFrom(field.getType()), signature -> true, false);
     }
 
     /**
      * Allow fields with any valid bean type. This excludes primitive types and arrays.
      */
     public static Predicate<Field> withBeanType() {
-        return field -> field.getType() != Void.class
-                && !field.getType().isPrimitive()
-                && !field.getType().isArray();
+        return new MemberCheck<Field>(Kind.TYPE, "with bean type",
+                field -> isBeanType(field.getType()), LegacyMemberSignature::hasBeanType, true);
     }
 
     /**
      * Allow methods returning the specified type or a subtype.
      */
     public static Predicate<Method> returning(Class<?> returnType) {
-        return method -> returnType.isAssignableFrom(method.getReturnType());
+        return new MemberCheck<Method>(Kind.TYPE, "returning " + returnType.getName(),
+                method -> returnType.isAssignableFrom(method.getReturnType()), signature -> true, false);
     }
 
     /**
      * Allow methods returning any valid bean type. This excludes primitive types and arrays.
      */
     public static Predicate<Method> returningBeanType() {
-        return method -> method.getReturnType() != Void.class
-                && !method.getReturnType().isPrimitive()
-                && !method.getReturnType().isArray();
+        return new MemberCheck<Method>(Kind.TYPE, "returning bean type",
+                method -> isBeanType(method.getReturnType()), LegacyMemberSignature::hasBeanType, true);
     }
 
     /**
      * Allow methods without any parameter.
      */
     public static Predicate<Method> withoutParameters() {
-        return method -> method.getParameterCount() == 0;
+        return new MemberCheck<Method>(Kind.PARAMETERS, "without parameters", method -> method.getParameterCount() == 0,
+                signature -> signature.getParameterCount() == 0, true);
     }
 
     /**
      * Allow methods not inherited from {@link Object}.
      */
     public static Predicate<Method> noObjectMethod() {
-        return method -> method.getDeclaringClass() != Object.class;
+        return new MemberCheck<Method>(Kind.DECLARING_CLASS, "not declared by Object",
+                method -> method.getDeclaringClass() != Object.class, signature -> true, true);
     }
 
     /**
@@ -112,7 +125,7 @@ public final class MemberPredicates {
      * The name has to start with {@code get} followed by anything starting with an uppercase letter.
      */
     public static Predicate<Method> anyGetter() {
-        return named(GETTERS);
+        return withName("named like get[A-Z].+", MemberPredicates::isGetterName);
     }
 
     /**
@@ -120,6 +133,279 @@ public final class MemberPredicates {
      * The has to start with an uppercase latter followed by any combination of uppercase letters, digits and underscore.
      */
     public static Predicate<Field> anyConstant() {
-        return named(CONSTANTS);
+        return withName("named like [A-Z][A-Z0-9_]+", MemberPredicates::isConstantName);
+    }
+
+    /**
+     * Get the check of class file metadata for a member check.
+     * Any check not created here cannot be evaluated on metadata and will allow any member.
+     */
+    static Predicate<LegacyMemberSignature> signatureCheck(Predicate<?> check) {
+        return check instanceof MemberCheck ? ((MemberCheck<?>) check).signature : signature -> true;
+    }
+
+    /**
+     * Get the only names a member check allows, so members can be looked up by name instead of checking all.
+     *
+     * @return the names or nothing if the check allows other names
+     */
+    static Optional<Set<String>> names(Predicate<?> check) {
+        return check instanceof MemberCheck ? Optional.ofNullable(((MemberCheck<?>) check).names) : Optional.empty();
+    }
+
+    private static <T extends Member> Predicate<T> withModifiers(int required, int forbidden) {
+        return new MemberCheck<>(required, forbidden);
+    }
+
+    private static <T extends Member> Predicate<T> withNames(Set<String> names) {
+        Set<String> allowed = Collections.unmodifiableSet(names);
+        return new MemberCheck<T>(Kind.NAMES, "named " + String.join(" or ", allowed),
+                member -> allowed.contains(member.getName()), signature -> allowed.contains(signature.getName()), true, false, allowed);
+    }
+
+    private static <T extends Member> Predicate<T> withName(String description, Predicate<String> check) {
+        return new MemberCheck<T>(Kind.NAME_PATTERN, description, member -> check.test(member.getName()),
+                signature -> check.test(signature.getName()), true);
+    }
+
+    private static boolean isBeanType(Class<?> type) {
+        return type != Void.class && !type.isPrimitive() && !type.isArray();
+    }
+
+    private static boolean isGetterName(String name) {
+        return name.length() > 4 && name.startsWith("get") && isUpperCase(name.charAt(3));
+    }
+
+    private static boolean isConstantName(String name) {
+        if (name.length() < 2 || !isUpperCase(name.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < name.length(); ++i) {
+            char c = name.charAt(i);
+            if (!isUpperCase(c) && !(c >= '0' && c <= '9') && c != '_') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isUpperCase(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    private static boolean isExact(Predicate<?> check) {
+        return check instanceof MemberCheck && ((MemberCheck<?>) check).exact;
+    }
+
+    /**
+     * Check whether the check is or contains a predicate not created by member predicates, which cannot be identified
+     * by its description.
+     */
+    static boolean isCustom(Predicate<?> check) {
+        return !(check instanceof MemberCheck) || ((MemberCheck<?>) check).custom;
+    }
+
+    /**
+     * The kind of check, ordered by the cost of checking a member.
+     */
+    enum Kind {
+        ANY, MODIFIERS, NAMES, PARAMETERS, DECLARING_CLASS, TYPE, NAME_PATTERN, ANY_OF, NOT, ALL_OF, CUSTOM
+    }
+
+    /**
+     * A member check with an additional check of class file metadata.
+     * The metadata check never rejects a member allowed by the member check. If it is exact, it allows the same
+     * members only, so it can be negated.
+     * Combining checks using {@link #and(Predicate)} compiles all parts into a single check.
+     */
+    static final class MemberCheck<T extends Member> implements Predicate<T> {
+
+        private final Kind kind;
+        private final String description;
+        private final Predicate<? super T> member;
+        private final Predicate<LegacyMemberSignature> signature;
+        private final boolean exact;
+        private final boolean custom;
+        private final Set<String> names;
+        private final int requiredModifiers;
+        private final int forbiddenModifiers;
+        private final List<Predicate<? super T>> parts;
+
+        MemberCheck(Kind kind, String description, Predicate<? super T> member, Predicate<LegacyMemberSignature> signature, boolean exact) {
+            this(kind, description, member, signature, exact, false, null);
+        }
+
+        private MemberCheck(Kind kind, String description, Predicate<? super T> member, Predicate<LegacyMemberSignature> signature, boolean exact, boolean custom, Set<String> names) {
+            this.kind = kind;
+            this.description = description;
+            this.member = member;
+            this.signature = signature;
+            this.exact = exact;
+            this.custom = custom;
+            this.names = names;
+            this.requiredModifiers = 0;
+            this.forbiddenModifiers = 0;
+            this.parts = Collections.singletonList(this);
+        }
+
+        private MemberCheck(int required, int forbidden) {
+            this.kind = Kind.MODIFIERS;
+            this.description = describeModifiers(required, forbidden);
+            this.member = member -> hasModifiers(member.getModifiers(), required, forbidden);
+            this.signature = signature -> hasModifiers(signature.getModifiers(), required, forbidden);
+            this.exact = true;
+            this.custom = false;
+            this.names = null;
+            this.requiredModifiers = required;
+            this.forbiddenModifiers = forbidden;
+            this.parts = Collections.singletonList(this);
+        }
+
+        private MemberCheck(List<Predicate<? super T>> parts) {
+            this.kind = Kind.ALL_OF;
+            this.parts = Collections.unmodifiableList(parts);
+            this.description = parts.stream().map(MemberCheck::describe).collect(joining(" and "));
+            this.signature = parts.stream()
+                    .map(MemberPredicates::signatureCheck)
+                    .reduce(Predicate::and)
+                    .orElse(any -> true);
+            this.exact = parts.stream().allMatch(MemberPredicates::isExact);
+            this.custom = parts.stream().anyMatch(MemberPredicates::isCustom);
+            this.names = parts.stream()
+                    .map(MemberPredicates::names)
+                    .filter(Optional::isPresent)
+                    .map(Optional::get)
+                    .reduce(MemberCheck::intersect)
+                    .orElse(null);
+            this.requiredModifiers = 0;
+            this.forbiddenModifiers = 0;
+            this.member = compile(parts);
+        }
+
+        Kind getKind() {
+            return kind;
+        }
+
+        @Override
+        public boolean test(T t) {
+            return member.test(t);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Predicate<T> and(Predicate<? super T> other) {
+            Objects.requireNonNull(other);
+            List<Predicate<? super T>> combined = new ArrayList<>(parts);
+            if (other instanceof MemberCheck) {
+                for (Predicate<?> part : ((MemberCheck<?>) other).parts) {
+                    combined.add((Predicate<? super T>) part);
+                }
+            } else {
+                combined.add(other);
+            }
+            return new MemberCheck<>(combined);
+        }
+
+        @Override
+        public Predicate<T> or(Predicate<? super T> other) {
+            Objects.requireNonNull(other);
+            Optional<Set<String>> otherNames = names(other);
+            Set<String> union = null;
+            if (names != null && otherNames.isPresent()) {
+                union = new LinkedHashSet<>(names);
+                union.addAll(otherNames.get());
+            }
+            return new MemberCheck<T>(Kind.ANY_OF, "(" + this + " or " + describe(other) + ")",
+                    t -> test(t) || other.test(t), signature.or(signatureCheck(other)), exact && isExact(other),
+                    custom || isCustom(other), union);
+        }
+
+        @Override
+        public Predicate<T> negate() {
+            return new MemberCheck<T>(Kind.NOT, "not (" + this + ")", t -> !test(t), exact ? signature.negate() : any -> true,
+                    exact, custom, null);
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+
+        /**
+         * Fold modifier and name checks into one each and order all checks by cost.
+         * Checks not created by member predicates keep their order after all others.
+         */
+        private static <T extends Member> Predicate<T> compile(List<Predicate<? super T>> parts) {
+            int required = 0;
+            int forbidden = 0;
+            Set<String> names = null;
+            List<Predicate<? super T>> others = new ArrayList<>();
+            for (Predicate<? super T> part : parts) {
+                Kind partKind = kindOf(part);
+                if (partKind == Kind.MODIFIERS) {
+                    required |= ((MemberCheck<?>) part).requiredModifiers;
+                    forbidden |= ((MemberCheck<?>) part).forbiddenModifiers;
+                } else if (partKind == Kind.NAMES) {
+                    names = names == null ? ((MemberCheck<?>) part).names : intersect(names, ((MemberCheck<?>) part).names);
+                } else if (partKind != Kind.ANY) {
+                    others.add(part);
+                }
+            }
+            others.sort(Comparator.comparing(MemberCheck::kindOf));
+            List<Predicate<? super T>> compiled = new ArrayList<>();
+            if (required != 0 || forbidden != 0) {
+                int requiredModifiers = required;
+                int forbiddenModifiers = forbidden;
+                compiled.add(member -> hasModifiers(member.getModifiers(), requiredModifiers, forbiddenModifiers));
+            }
+            if (names != null) {
+                Set<String> allowed = names;
+                compiled.add(member -> allowed.contains(member.getName()));
+            }
+            compiled.addAll(others.stream().map(MemberCheck::unwrap).collect(toList()));
+            @SuppressWarnings("unchecked")
+            Predicate<? super T>[] checks = compiled.toArray(new Predicate[0]);
+            return member -> {
+                for (Predicate<? super T> check : checks) {
+                    if (!check.test(member)) {
+                        return false;
+                    }
+                }
+                return true;
+            };
+        }
+
+        private static <T extends Member> Predicate<? super T> unwrap(Predicate<? super T> part) {
+            return part instanceof MemberCheck ? ((MemberCheck<? super T>) part).member : part;
+        }
+
+        private static Kind kindOf(Predicate<?> check) {
+            return check instanceof MemberCheck ? ((MemberCheck<?>) check).kind : Kind.CUSTOM;
+        }
+
+        private static String describe(Predicate<?> check) {
+            return check instanceof MemberCheck ? check.toString() : "custom";
+        }
+
+        private static Set<String> intersect(Set<String> names, Set<String> others) {
+            Set<String> intersection = new LinkedHashSet<>(names);
+            intersection.retainAll(others);
+            return Collections.unmodifiableSet(intersection);
+        }
+
+        private static boolean hasModifiers(int modifiers, int required, int forbidden) {
+            return (modifiers & required) == required && (modifiers & forbidden) == 0;
+        }
+
+        private static String describeModifiers(int required, int forbidden) {
+            List<String> description = new ArrayList<>();
+            if (required != 0) {
+                description.add(Modifier.toString(required));
+            }
+            if (forbidden != 0) {
+                description.add("non " + Modifier.toString(forbidden));
+            }
+            return String.join(" ", description);
+        }
     }
 }
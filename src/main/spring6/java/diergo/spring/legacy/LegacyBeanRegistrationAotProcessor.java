@@ -0,0 +1,44 @@
+package diergo.spring.legacy;
+
+import org.springframework.beans.factory.aot.BeanRegistrationAotContribution;
+import org.springframework.beans.factory.aot.BeanRegistrationAotProcessor;
+import org.springframework.beans.factory.aot.BeanRegistrationExcludeFilter;
+import org.springframework.beans.factory.support.RegisteredBean;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+/**
+ * Ahead of time processing of legacy beans, available with Spring 6 only.
+ * The legacy beans found at build time are registered by generated code, so the post processor scanning for them is
+ * excluded and AOT optimized applications and native images do not scan the class path at runtime.
+ * The instance suppliers of legacy beans are replaced by generated code accessing their fields or methods,
+ * the runtime hints needed for reflective access are registered.
+ *
+ * @see LegacyBeanRegistryPostProcessor
+ * @see LegacyInstanceSupplier
+ */
+class LegacyBeanRegistrationAotProcessor implements BeanRegistrationAotProcessor, BeanRegistrationExcludeFilter {
+
+    @Override
+    public BeanRegistrationAotContribution processAheadOfTime(RegisteredBean registeredBean) {
+        RootBeanDefinition bd = registeredBean.getMergedBeanDefinition();
+        if (!(bd.getInstanceSupplier() instanceof LegacyInstanceSupplier)) {
+            return null;
+        }
+        return BeanRegistrationAotContribution.withCustomCodeFragments(
+                codeFragments -> new LegacyBeanRegistrationCodeFragments(codeFragments, registeredBean));
+    }
+
+    /**
+     * Exclude the post processors already applied at build time, their warm-up depending on an executor and their
+     * profile of bean creations.
+     * The bean type of a post processor created by a {@code @Bean} method is the return type declared,
+     * so the singleton created at build time is checked.
+     */
+    @Override
+    public boolean isExcludedFromAotProcessing(RegisteredBean registeredBean) {
+        return LegacyBeanWarmUp.class.equals(registeredBean.getBeanClass())
+                || LegacyBeanProfile.class.equals(registeredBean.getBeanClass())
+                || registeredBean.getBeanFactory()
+                .getSingleton(registeredBean.getBeanName()) instanceof LegacyBeanRegistryPostProcessor;
+    }
+}
@@ -0,0 +1,95 @@
+package diergo.spring.legacy;
+
+import static diergo.spring.legacy.LegacySingletonFieldFilter.FIELD_ATTRIBUTE;
+
+import java.lang.reflect.Field;
+import javax.lang.model.element.Modifier;
+import org.springframework.aot.generate.AccessControl;
+import org.springframework.aot.generate.GeneratedMethod;
+import org.springframework.aot.generate.GenerationContext;
+import org.springframework.beans.factory.aot.BeanRegistrationCode;
+import org.springframework.beans.factory.aot.BeanRegistrationCodeFragments;
+import org.springframework.beans.factory.aot.BeanRegistrationCodeFragmentsDecorator;
+import org.springframework.beans.factory.aot.InstanceSupplierCodeGenerator;
+import org.springframework.beans.factory.support.InstanceSupplier;
+import org.springframework.beans.factory.support.RegisteredBean;
+import org.springframework.javapoet.ClassName;
+import org.springframework.javapoet.CodeBlock;
+import org.springframework.javapoet.MethodSpec;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Generates the instance supplier of a legacy bean instead of using the {@link LegacyInstanceSupplier} of the bean definition.
+ * Legacy singletons of static fields read the field directly if accessible, otherwise reflectively.
+ * Beans of static factory methods or factory methods of factory beans are created like other factory method beans.
+ *
+ * @see LegacyBeanRegistrationAotProcessor
+ */
+final class LegacyBeanRegistrationCodeFragments extends BeanRegistrationCodeFragmentsDecorator {
+
+    private final RegisteredBean registeredBean;
+    private final Field field;
+
+    LegacyBeanRegistrationCodeFragments(BeanRegistrationCodeFragments delegate, RegisteredBean registeredBean) {
+        super(delegate);
+        this.registeredBean = registeredBean;
+        Object fieldName = registeredBean.getMergedBeanDefinition().getAttribute(FIELD_ATTRIBUTE);
+        this.field = fieldName == null ? null
+                : ReflectionUtils.findField(registeredBean.getBeanClass(), fieldName.toString());
+    }
+
+    @Override
+    public ClassName getTarget(RegisteredBean registeredBean) {
+        if (field != null) {
+            return ClassName.get(registeredBean.getBeanClass());
+        }
+        return ClassName.get(ClassUtils.getUserClass(registeredBean.resolveInstantiationDescriptor().targetClass()));
+    }
+
+    @Override
+    public CodeBlock generateInstanceSupplierCode(GenerationContext generationContext,
+                                                  BeanRegistrationCode beanRegistrationCode,
+                                                  boolean allowDirectSupplierShortcut) {
+        if (field == null) {
+            return new InstanceSupplierCodeGenerator(generationContext, beanRegistrationCode.getClassName(),
+                    beanRegistrationCode.getMethods(), allowDirectSupplierShortcut)
+                    .generateCode(registeredBean, registeredBean.resolveInstantiationDescriptor());
+        }
+        Class<?> beanClass = registeredBean.getBeanClass();
+        GeneratedMethod getInstance = beanRegistrationCode.getMethods().add("getInstance", method -> {
+            method.addJavadoc("Get the legacy singleton '$L' from the static field $L.",
+                    registeredBean.getBeanName(), field.getName());
+            method.addModifiers(Modifier.PRIVATE, Modifier.STATIC);
+            method.returns(beanClass);
+            if (isAccessibleFrom(beanRegistrationCode.getClassName())) {
+                addFieldAccess(method, beanClass);
+            } else {
+                generationContext.getRuntimeHints().reflection().registerField(field);
+                addReflectiveFieldAccess(method, beanClass);
+            }
+        });
+        return CodeBlock.of("$T.<$T>using($L)", InstanceSupplier.class, beanClass,
+                getInstance.toMethodReference().toCodeBlock());
+    }
+
+    private boolean isAccessibleFrom(ClassName target) {
+        return AccessControl.lowest(AccessControl.forClass(field.getDeclaringClass()), AccessControl.forMember(field))
+                .isAccessibleFrom(target);
+    }
+
+    private void addFieldAccess(MethodSpec.Builder method, Class<?> beanClass) {
+        if (beanClass.equals(field.getType())) {
+            method.addStatement("return $T.$L", field.getDeclaringClass(), field.getName());
+        } else {
+            method.addStatement("return ($T) $T.$L", beanClass, field.getDeclaringClass(), field.getName());
+        }
+    }
+
+    private void addReflectiveFieldAccess(MethodSpec.Builder method, Class<?> beanClass) {
+        method.addStatement("$T field = $T.findField($T.class, $S)",
+                Field.class, ReflectionUtils.class, beanClass, field.getName());
+        method.addStatement("$T.makeAccessible(field)", ReflectionUtils.class);
+        method.addStatement("return ($T) $T.getField(field, null)", beanClass, ReflectionUtils.class);
+    }
+}
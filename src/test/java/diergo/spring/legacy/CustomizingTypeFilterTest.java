@@ -0,0 +1,65 @@
+package diergo.spring.legacy;
+
+import example.legacy.LegacySingletonByField;
+import example.legacy.LegacySingletonByMethod;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.beans.factory.config.ConfigurableBeanFactory.SCOPE_SINGLETON;
+
+public class CustomizingTypeFilterTest {
+
+    private static final MetadataReaderFactory EXAMPLE_FACTORY = new SimpleMetadataReaderFactory();
+
+    @Test
+    public void typeHierarchyIsCheckedFromMetadata() {
+        assertThat(CustomizingTypeFilter.isAssignable(Properties.class.getName(), Properties.class.getName(), EXAMPLE_FACTORY), is(true));
+        assertThat(CustomizingTypeFilter.isAssignable(Properties.class.getName(), "java.util.Map", EXAMPLE_FACTORY), is(true));
+        assertThat(CustomizingTypeFilter.isAssignable(Properties.class.getName(), NonSingletonBean.class.getName(), EXAMPLE_FACTORY), is(false));
+    }
+
+    @Test
+    public void unreadableTypeIsAssumedAssignable() {
+        assertThat(CustomizingTypeFilter.isAssignable("example.legacy.Missing", NonSingletonBean.class.getName(), EXAMPLE_FACTORY), is(true));
+    }
+
+    @Test
+    public void classesWithoutMatchingMetadataAreNotInspected() {
+        AtomicInteger checks = new AtomicInteger();
+        LegacyBeanMethodFilter tested = new LegacyBeanMethodFilter(SCOPE_SINGLETON, method -> checks.incrementAndGet() > 0);
+        tested.useMetadataMatching();
+
+        assertThat(tested.match(new TestMetadataReader(NonSingletonBean.class), EXAMPLE_FACTORY), is(false));
+        assertThat(checks.get(), is(0));
+        assertThat(tested.match(new TestMetadataReader(LegacySingletonByMethod.class), EXAMPLE_FACTORY), is(true));
+        assertThat(checks.get(), is(1));
+    }
+
+    @Test
+    public void subtypesAreMatchedFromMetadata() {
+        LegacyBeanMethodFilter tested = new LegacyBeanMethodFilter(SCOPE_SINGLETON, method -> true);
+        tested.useMetadataMatching();
+        tested.useCache(new LegacyScanCache());
+
+        assertThat(tested.match(new TestMetadataReader(SubtypeSingletonBean.class), EXAMPLE_FACTORY), is(true));
+    }
+
+    @Test
+    public void classesWithoutMetadataAreInspected() {
+        AtomicInteger checks = new AtomicInteger();
+        LegacySingletonFieldFilter tested = new LegacySingletonFieldFilter(field -> checks.incrementAndGet() > 0);
+        tested.useMetadataMatching();
+
+        assertThat(tested.match(new TestMetadataReader(LegacySingletonByField.class, null), EXAMPLE_FACTORY), is(true));
+        assertThat(tested.match(new TestMetadataReader(LegacySingletonByField.class,
+                new ClassPathResource("example/legacy/Missing.class")), EXAMPLE_FACTORY), is(true));
+        assertThat(checks.get(), is(2));
+    }
+}
@@ -59,7 +59,11 @@ public class ExampleIntegrationTest {
     @BeforeEach
     void createSpringContext() {
         applicationContext = new AnnotationConfigApplicationContext();
-        applicationContext.register(SpringConfig.class);
+        applicationContext.register(configuration());
+    }
+
+    Class<?> configuration() {
+        return SpringConfig.class;
     }
 
     @AfterEach
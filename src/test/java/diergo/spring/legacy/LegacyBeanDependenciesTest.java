@@ -0,0 +1,90 @@
+package diergo.spring.legacy;
+
+import static diergo.spring.legacy.LegacyBeanRegistryPostProcessorBuilder.legacyPackages;
+import static diergo.spring.legacy.MemberPredicates.named;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.arrayContainingInAnyOrder;
+import static org.hamcrest.Matchers.either;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.SimpleBeanDefinitionRegistry;
+import org.springframework.context.annotation.AnnotationBeanNameGenerator;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.DefaultResourceLoader;
+
+public class LegacyBeanDependenciesTest {
+
+    private BeanDefinitionRegistry registry;
+
+    @Test
+    public void singletonsDependOnSingletonsInitializedByTheirConstructors() {
+        registerLegacySingletons();
+
+        assertThat(registry.getBeanDefinition("service").getDependsOn(), arrayContaining("configuration"));
+        assertThat(registry.getBeanDefinition("configuration").getDependsOn(), nullValue());
+    }
+
+    @Test
+    public void singletonsDependOnSingletonsInitializedByTheirFactoryMethods() {
+        registerLegacySingletons();
+
+        assertThat(registry.getBeanDefinition("repository").getDependsOn(), arrayContaining("service"));
+    }
+
+    @Test
+    public void cyclicDependenciesAreBrokenInOneDirection() {
+        registerLegacySingletons();
+
+        String[] chickenDependsOn = registry.getBeanDefinition("chicken").getDependsOn();
+        String[] eggDependsOn = registry.getBeanDefinition("egg").getDependsOn();
+        assertThat(Arrays.asList(chickenDependsOn, eggDependsOn).contains(null), is(true));
+        assertThat(chickenDependsOn == null ? eggDependsOn : chickenDependsOn,
+                either(arrayContaining("chicken")).or(arrayContaining("egg")));
+    }
+
+    @Test
+    public void declaredDependenciesAreKept() {
+        registerLegacySingletons();
+        BeanDefinition service = registry.getBeanDefinition("service");
+        service.setDependsOn("other");
+
+        new LegacyBeanDependencies(registry, new DefaultResourceLoader()).infer(Arrays.asList(registry.getBeanDefinitionNames()));
+
+        assertThat(service.getDependsOn(), arrayContainingInAnyOrder("configuration", "other"));
+    }
+
+    @Test
+    public void dependenciesAreNotInferredByDefault() {
+        LegacyBeanRegistryPostProcessor processor = (LegacyBeanRegistryPostProcessor) legacyPackages("example.dependent")
+                .beanNaming(AnnotationBeanNameGenerator.INSTANCE)
+                .singletonsFrom().fields(named("INSTANCE"))
+                .build();
+        processor.setEnvironment(new StandardEnvironment());
+        processor.postProcessBeanDefinitionRegistry(registry);
+
+        assertThat(registry.getBeanDefinition("service").getDependsOn(), nullValue());
+    }
+
+    @BeforeEach
+    void createRegistry() {
+        registry = new SimpleBeanDefinitionRegistry();
+    }
+
+    private void registerLegacySingletons() {
+        LegacyBeanRegistryPostProcessor processor = (LegacyBeanRegistryPostProcessor) legacyPackages("example.dependent")
+                .beanNaming(AnnotationBeanNameGenerator.INSTANCE)
+                .singletonsFrom().fields(named("INSTANCE"))
+                .singletonsFrom().methods(named("getInstance"))
+                .inferDependencies()
+                .build();
+        processor.setEnvironment(new StandardEnvironment());
+        processor.postProcessBeanDefinitionRegistry(registry);
+    }
+}
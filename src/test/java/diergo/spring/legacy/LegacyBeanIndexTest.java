@@ -0,0 +1,152 @@
+package diergo.spring.legacy;
+
+import example.legacy.LegacySingletonByField;
+import example.legacy.LegacySingletonByMethod;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.DefaultBeanNameGenerator;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.annotation.AnnotationBeanNameGenerator;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static diergo.spring.legacy.MemberPredicates.named;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.isA;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.beans.factory.config.ConfigurableBeanFactory.SCOPE_PROTOTYPE;
+import static org.springframework.beans.factory.config.ConfigurableBeanFactory.SCOPE_SINGLETON;
+
+public class LegacyBeanIndexTest {
+
+    static final String INDEXED = LegacyBeanIndex.key(new String[]{"example.legacy"},
+            Arrays.asList(new LegacySingletonFieldFilter(named("INSTANCE")), new LegacyBeanMethodFilter(SCOPE_SINGLETON, named("getInstance"))),
+            new AnnotationBeanNameGenerator());
+
+    @Test
+    public void indexIsLoadedFromClassPath() {
+        LegacyBeanIndex tested = LegacyBeanIndex.load(getClass().getClassLoader());
+
+        List<LegacyBeanIndex.Entry> actual = tested.getEntries(INDEXED).orElseThrow(AssertionError::new);
+
+        assertThat(actual, hasSize(2));
+        assertThat(actual.get(0).getBeanName(), is("legacySingletonByField"));
+        assertThat(LegacyBeanIndex.load(getClass().getClassLoader()), sameInstance(tested));
+    }
+
+    @Test
+    public void configurationsNotIndexedAreMissing() {
+        LegacyBeanIndex tested = LegacyBeanIndex.load(getClass().getClassLoader());
+
+        assertThat(tested.getEntries(LegacyBeanIndex.key(new String[]{"example"},
+                singletonList(new LegacySingletonFieldFilter(named("INSTANCE"))), new AnnotationBeanNameGenerator())).isPresent(), is(false));
+        assertThat(tested.getEntries(LegacyBeanIndex.key(new String[]{"example.legacy"},
+                singletonList(new LegacySingletonFieldFilter(named("INSTANCE"))), new AnnotationBeanNameGenerator())).isPresent(), is(false));
+        assertThat(tested.getEntries(LegacyBeanIndex.key(new String[]{"example.legacy"},
+                Arrays.asList(new LegacySingletonFieldFilter(named("INSTANCE")), new LegacyBeanMethodFilter(SCOPE_SINGLETON, named("getInstance"))),
+                new DefaultBeanNameGenerator())).isPresent(), is(false));
+    }
+
+    @Test
+    public void keyIsStableForCustomChecks() {
+        String first = LegacyBeanIndex.key(new String[]{"example"},
+                singletonList(new LegacySingletonFieldFilter(field -> field.getName().startsWith("A"))), (bd, registry) -> "a");
+        String second = LegacyBeanIndex.key(new String[]{"example"},
+                singletonList(new LegacySingletonFieldFilter(field -> field.getName().startsWith("B"))), (bd, registry) -> "b");
+
+        assertThat(first, is(second));
+        assertThat(first, is("example | singleton fields non private and static and with bean type and custom | named by " + getClass().getName()));
+    }
+
+    @Test
+    public void fieldEntryCreatesBeanDefinitionUsingTheField() {
+        AbstractBeanDefinition actual = LegacyBeanIndex.Entry.parse(
+                "field\t" + LegacySingletonByField.class.getName() + "\tfield\tINSTANCE\tsingleton").toBeanDefinition();
+
+        assertThat(actual.getScope(), is(SCOPE_SINGLETON));
+        assertThat(actual.isLazyInit(), is(true));
+        assertThat(actual.getInstanceSupplier().get(), sameInstance(LegacySingletonByField.INSTANCE));
+    }
+
+    @Test
+    public void methodEntryCreatesBeanDefinitionUsingTheMethod() {
+        AbstractBeanDefinition actual = LegacyBeanIndex.Entry.parse(
+                "method\t" + LegacySingletonByMethod.class.getName() + "\tmethod\tgetInstance\tprototype").toBeanDefinition();
+
+        assertThat(actual.getScope(), is(SCOPE_PROTOTYPE));
+        assertThat(actual.isLazyInit(), is(false));
+        assertThat(actual.getFactoryMethodName(), is("getInstance"));
+        assertThat(actual.getInstanceSupplier().get(), isA(LegacySingletonByMethod.class));
+    }
+
+    @Test
+    public void entriesAreCreatedFromCustomizedBeanDefinitions() {
+        RootBeanDefinition field = new RootBeanDefinition(LegacySingletonByField.class);
+        new LegacySingletonFieldFilter(any -> true).customize(field);
+        RootBeanDefinition method = new RootBeanDefinition(LegacySingletonByMethod.class);
+        new LegacyBeanMethodFilter(SCOPE_SINGLETON, any -> true).customize(method);
+
+        assertThat(LegacyBeanIndex.Entry.of("field", field).format(),
+                is("field\t" + LegacySingletonByField.class.getName() + "\tfield\tINSTANCE\tsingleton"));
+        assertThat(LegacyBeanIndex.Entry.of("method", method).toString(),
+                is("method\t" + LegacySingletonByMethod.class.getName() + "\tmethod\tgetInstance\tsingleton"));
+        assertThrows(IllegalArgumentException.class,
+                () -> LegacyBeanIndex.Entry.of("other", new GenericBeanDefinition()));
+    }
+
+    @Test
+    public void missingFieldCannotCreateBean() {
+        AbstractBeanDefinition actual = LegacyBeanIndex.Entry.parse(
+                "field\t" + LegacySingletonByField.class.getName() + "\tfield\tMISSING\tsingleton").toBeanDefinition();
+
+        assertThrows(RuntimeException.class, () -> actual.getInstanceSupplier().get());
+    }
+
+    @Test
+    public void invalidEntriesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> LegacyBeanIndex.Entry.parse("name\ttype\tfield"));
+        assertThrows(IllegalArgumentException.class, () -> LegacyBeanIndex.Entry.parse("name\ttype\tother\tx\tsingleton"));
+    }
+
+    @Test
+    public void writtenIndexCanBeLoaded(@TempDir Path dir) throws IOException {
+        LegacyBeanIndex.Entry entry = LegacyBeanIndex.Entry.parse("name\ttype\tmethod\tcreate\tprototype");
+        StringWriter out = new StringWriter();
+        new LegacyBeanIndex(singletonMap("a,b", singletonList(entry))).write(out);
+        writeIndex(dir, out.toString());
+
+        LegacyBeanIndex actual = LegacyBeanIndex.load(new URLClassLoader(new URL[]{dir.toUri().toURL()}, null));
+
+        assertThat(actual.getEntries("a,b").map(entries -> entries.get(0).format()).orElse(null), is(entry.format()));
+    }
+
+    @Test
+    public void entriesOutsideOfSectionAreRejected(@TempDir Path dir) throws IOException {
+        writeIndex(dir, "name\ttype\tmethod\tcreate\tprototype\n");
+
+        assertThrows(IllegalStateException.class,
+                () -> LegacyBeanIndex.load(new URLClassLoader(new URL[]{dir.toUri().toURL()}, null)));
+    }
+
+    private static void writeIndex(Path dir, String content) throws IOException {
+        Files.createDirectories(dir.resolve("META-INF"));
+        Files.write(dir.resolve(LegacyBeanIndex.INDEX_LOCATION), content.getBytes(UTF_8));
+    }
+}
@@ -0,0 +1,43 @@
+package diergo.spring.legacy;
+
+import example.legacy.LegacySingletonByField;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LegacyBeanIndexerTest {
+
+    @Test
+    public void indexIsWrittenForPostProcessor(@TempDir Path dir) throws IOException {
+        LegacyBeanIndexer.main(dir.toString(), "example.spring.SpringConfig#legacySingletons");
+
+        String actual = new String(Files.readAllBytes(dir.resolve(LegacyBeanIndex.INDEX_LOCATION)), UTF_8);
+
+        assertThat(actual, startsWith("# legacy beans indexed by post processor configuration\n[example | singleton fields "));
+        assertThat(actual, containsString("\t" + LegacySingletonByField.class.getName() + "\tfield\tINSTANCE\tsingleton\n"));
+    }
+
+    @Test
+    public void postProcessorsWithTheSameConfigurationAreRejected(@TempDir Path dir) {
+        assertThrows(IllegalArgumentException.class, () -> LegacyBeanIndexer.main(dir.toString(),
+                "example.spring.SpringConfig#legacySingletons", "example.spring.SpringConfig#legacySingletons"));
+    }
+
+    @Test
+    public void invalidArgumentsAreRejected(@TempDir Path dir) {
+        String output = dir.toString();
+        assertThrows(IllegalArgumentException.class, () -> LegacyBeanIndexer.main(output));
+        assertThrows(IllegalArgumentException.class, () -> LegacyBeanIndexer.main(output, "example.spring.SpringConfig"));
+        assertThrows(IllegalArgumentException.class, () -> LegacyBeanIndexer.main(output, "example.spring.SpringConfig#missing"));
+        assertThrows(IllegalArgumentException.class, () -> LegacyBeanIndexer.main(output, "java.lang.System#lineSeparator"));
+    }
+}
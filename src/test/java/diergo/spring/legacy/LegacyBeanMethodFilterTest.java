@@ -7,7 +7,10 @@ import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
 import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.springframework.beans.factory.config.ConfigurableBeanFactory.SCOPE_PROTOTYPE;
 import static org.springframework.beans.factory.config.ConfigurableBeanFactory.SCOPE_SINGLETON;
@@ -38,6 +41,14 @@ public class LegacyBeanMethodFilterTest {
                 method -> method.getName().equals("getInstance"))), is(false));
     }
 
+    @Test
+    public void methodsAreLookedUpByName() {
+        assertThat(matchTypeFilter(LegacyPrototypeByStaticMethod.class, new LegacyBeanMethodFilter(SCOPE_PROTOTYPE,
+                MemberPredicates.named("missing", "createInstance"))), is(true));
+        assertThat(matchTypeFilter(LegacyPrototypeByStaticMethod.class, new LegacyBeanMethodFilter(SCOPE_PROTOTYPE,
+                MemberPredicates.named("getInstance"))), is(false));
+    }
+
     @Test
     public void beanDefinitionOfSingletonWithStaticMethodWillGetTheFactoryMethodOnCustomize() {
         RootBeanDefinition actual = new RootBeanDefinition(LegacySingletonByMethod.class);
@@ -67,6 +78,34 @@ public class LegacyBeanMethodFilterTest {
         assertThat(matchBeanDefinition(NonSingletonBean.class, tested), is(false));
     }
 
+    @Test
+    public void membersAreSearchedOnceWhileCached() {
+        AtomicInteger checks = new AtomicInteger();
+        LegacyBeanMethodFilter tested = new LegacyBeanMethodFilter(SCOPE_SINGLETON, method -> checks.incrementAndGet() > 0);
+        tested.useCache(new LegacyScanCache());
+        RootBeanDefinition bd = new RootBeanDefinition(LegacySingletonByMethod.class);
+
+        matchTypeFilter(LegacySingletonByMethod.class, tested);
+        int checksOnMatch = checks.get();
+        tested.supports(bd);
+        tested.customize(bd);
+
+        assertThat(checks.get(), is(checksOnMatch));
+        assertThat(bd.getFactoryMethodName(), is("getInstance"));
+    }
+
+    @Test
+    public void membersAreSearchedAgainWithoutCache() {
+        AtomicInteger checks = new AtomicInteger();
+        LegacyBeanMethodFilter tested = new LegacyBeanMethodFilter(SCOPE_SINGLETON, method -> checks.incrementAndGet() > 0);
+
+        matchTypeFilter(LegacySingletonByMethod.class, tested);
+        int checksOnMatch = checks.get();
+        matchBeanDefinition(LegacySingletonByMethod.class, tested);
+
+        assertThat(checks.get(), is(greaterThan(checksOnMatch)));
+    }
+
     private boolean matchTypeFilter(Class<?> type, CustomizingTypeFilter<?> filter) {
         return filter.match(new TestMetadataReader(type), EXAMPLE_FACTORY);
     }
@@ -0,0 +1,111 @@
+package diergo.spring.legacy;
+
+import static diergo.spring.legacy.LegacyBeanRegistryPostProcessorBuilder.legacyPackages;
+import static diergo.spring.legacy.MemberPredicates.named;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import example.legacy.CreatedPrototype;
+import example.legacy.LegacyFactoryBean;
+import example.legacy.LegacySingletonByField;
+import example.legacy.LegacySingletonByMethod;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationBeanNameGenerator;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.mock.env.MockEnvironment;
+
+public class LegacyBeanProfileTest {
+
+    private GenericApplicationContext context;
+
+    @Test
+    public void creationsOfAllKindsOfLegacyBeansAreRecorded() {
+        context.getBean(LegacySingletonByField.class);
+        context.getBean(LegacySingletonByMethod.class);
+        context.getBean(CreatedPrototype.class);
+        context.getBean(CreatedPrototype.class);
+
+        List<LegacyBeanProfile.Creation> report = context.getBean(LegacyBeanProfile.class).getReport();
+
+        assertThat(report.stream().map(LegacyBeanProfile.Creation::getBeanName).collect(toList()),
+                containsInAnyOrder("legacySingletonByField", "legacySingletonByMethod", "legacyFactoryBean", "createdPrototype"));
+        LegacyBeanProfile.Creation prototype = report.stream()
+                .filter(creation -> creation.getBeanName().equals("createdPrototype"))
+                .findFirst().orElseThrow(IllegalStateException::new);
+        assertThat(prototype.getCount(), is(2L));
+        assertThat(prototype.getDescription(), containsString("createPrototype"));
+        assertThat(prototype.getThreadName(), is(Thread.currentThread().getName()));
+        assertThat(prototype.getAllocatedBytes(), greaterThanOrEqualTo(-1L));
+    }
+
+    @Test
+    public void reportIsRankedByTotalTime() {
+        context.getBean(LegacySingletonByField.class);
+        context.getBean(LegacySingletonByMethod.class);
+
+        List<LegacyBeanProfile.Creation> report = context.getBean(LegacyBeanProfile.class).getReport();
+
+        assertThat(report.size(), is(2));
+        assertThat(report.get(1).getTotalNanos(), lessThanOrEqualTo(report.get(0).getTotalNanos()));
+        assertThat(report.get(0).getTotalNanos(),
+                is(report.get(0).getClassInitNanos() + report.get(0).getInvocationNanos()));
+    }
+
+    @Test
+    public void beansNotCreatedAreNotReported() {
+        assertThat(context.getBean(LegacyBeanProfile.class).getReport(), is(empty()));
+    }
+
+    @Test
+    public void allocatedBytesAreMeasuredIfSupported() {
+        assertThat(context.getBean(LegacyBeanProfile.class).allocatedBytes(), greaterThan(0L));
+    }
+
+    @Test
+    public void allocatedBytesAreNotMeasuredWithoutExtendedThreadManagement() {
+        assertThat(LegacyBeanProfile.findAllocatedBytes(mock(ThreadMXBean.class)), is(nullValue()));
+    }
+
+    @Test
+    public void allocatedBytesAreNotMeasuredIfDisabled() {
+        com.sun.management.ThreadMXBean threads = mock(com.sun.management.ThreadMXBean.class);
+        when(threads.isThreadAllocatedMemorySupported()).thenReturn(true);
+        when(threads.isThreadAllocatedMemoryEnabled()).thenReturn(false);
+
+        assertThat(LegacyBeanProfile.findAllocatedBytes(threads), is(nullValue()));
+    }
+
+    @BeforeEach
+    void createContext() {
+        LegacyBeanRegistryPostProcessor processor = (LegacyBeanRegistryPostProcessor) legacyPackages("example.legacy")
+                .beanNaming(AnnotationBeanNameGenerator.INSTANCE)
+                .singletonsFrom().fields(named("INSTANCE"))
+                .singletonsFrom().methods(named("getInstance"))
+                .factory(LegacyFactoryBean.class).prototypes(named("createPrototype"))
+                .profileCreation()
+                .build();
+        processor.setEnvironment(new MockEnvironment().withProperty(LegacyBeanIndex.IGNORE_INDEX_PROPERTY, "true"));
+        context = new GenericApplicationContext();
+        context.addBeanFactoryPostProcessor(processor);
+        context.refresh();
+    }
+
+    @AfterEach
+    void closeContext() {
+        context.close();
+    }
+}
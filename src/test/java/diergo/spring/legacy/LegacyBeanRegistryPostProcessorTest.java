@@ -1,36 +1,71 @@
 package diergo.spring.legacy;
 
+import example.legacy.LegacyFactoryBean;
 import example.legacy.LegacySingletonByField;
 import example.legacy.LegacySingletonByMethod;
 import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.FatalBeanException;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinitionHolder;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanNameGenerator;
+import org.springframework.beans.factory.support.DefaultBeanNameGenerator;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.beans.factory.support.SimpleBeanDefinitionRegistry;
 import org.springframework.context.annotation.AnnotationBeanNameGenerator;
 import org.springframework.core.Ordered;
 import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.mock.env.MockEnvironment;
 
+import java.io.IOException;
 import java.lang.reflect.Member;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
+import static diergo.spring.legacy.LegacyBeanRegistryPostProcessorBuilder.legacyPackages;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toMap;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.beans.factory.config.ConfigurableBeanFactory.SCOPE_SINGLETON;
 
@@ -41,7 +76,7 @@ public class LegacyBeanRegistryPostProcessorTest {
     @Mock
     private CustomizingTypeFilter<Member> filter;
     @Mock
-    private Function<BeanDefinitionRegistry, Stream<BeanDefinition>> factory;
+    private LegacyFactoryBeanScanner factory;
 
     @Test
     public void beansForSingletonsAreRegisteredOnPostProcessBeanDefinitionRegistry() {
@@ -91,15 +126,388 @@ public class LegacyBeanRegistryPostProcessorTest {
         assertThat(definitions.isEmpty(), is(false));
     }
 
+    @Test
+    public void scanCacheIsDroppedAfterPostProcessing() {
+        tested.postProcessBeanDefinitionRegistry(new SimpleBeanDefinitionRegistry());
+
+        InOrder order = inOrder(filter);
+        order.verify(filter).useCache(any(LegacyScanCache.class));
+        order.verify(filter).useCache(null);
+    }
+
+    @Test
+    public void indexedBeansAreRegisteredWithoutScanning() {
+        LegacySingletonFieldFilter indexedFilter = spy(new LegacySingletonFieldFilter(MemberPredicates.named("INSTANCE")));
+        LegacyBeanRegistryPostProcessor indexed = createIndexedProcessor(indexedFilter, new AnnotationBeanNameGenerator());
+        indexed.setEnvironment(new StandardEnvironment());
+        SimpleBeanDefinitionRegistry registry = new SimpleBeanDefinitionRegistry();
+
+        indexed.postProcessBeanDefinitionRegistry(registry);
+
+        assertThat(registry.getBeanDefinition("legacySingletonByField").getBeanClassName(),
+                is(LegacySingletonByField.class.getName()));
+        assertThat(registry.getBeanDefinition("legacySingletonByMethod").getFactoryMethodName(), is("getInstance"));
+        verify(indexedFilter, never()).match(any(MetadataReader.class), any(MetadataReaderFactory.class));
+    }
+
+    @Test
+    public void indexCanBeIgnored() {
+        LegacySingletonFieldFilter indexedFilter = spy(new LegacySingletonFieldFilter(MemberPredicates.named("INSTANCE")));
+        LegacyBeanRegistryPostProcessor indexed = createIndexedProcessor(indexedFilter, new AnnotationBeanNameGenerator());
+        indexed.setEnvironment(new MockEnvironment().withProperty(LegacyBeanIndex.IGNORE_INDEX_PROPERTY, "true"));
+
+        indexed.postProcessBeanDefinitionRegistry(new SimpleBeanDefinitionRegistry());
+
+        verify(indexedFilter, atLeastOnce()).match(any(MetadataReader.class), any(MetadataReaderFactory.class));
+    }
+
+    @Test
+    public void indexOfOtherConfigurationIsNotUsed() {
+        LegacyBeanRegistryPostProcessor fieldsOnly = new LegacyBeanRegistryPostProcessor(
+                singletonList(new LegacySingletonFieldFilter(MemberPredicates.named("INSTANCE"))), emptyList(),
+                new AnnotationBeanNameGenerator(), Ordered.LOWEST_PRECEDENCE, "example.legacy");
+        fieldsOnly.setEnvironment(new StandardEnvironment());
+        LegacySingletonFieldFilter indexedFilter = spy(new LegacySingletonFieldFilter(MemberPredicates.named("INSTANCE")));
+        LegacyBeanRegistryPostProcessor otherNaming = createIndexedProcessor(indexedFilter, new DefaultBeanNameGenerator());
+        otherNaming.setEnvironment(new StandardEnvironment());
+        SimpleBeanDefinitionRegistry registry = new SimpleBeanDefinitionRegistry();
+
+        fieldsOnly.postProcessBeanDefinitionRegistry(registry);
+        otherNaming.postProcessBeanDefinitionRegistry(new SimpleBeanDefinitionRegistry());
+
+        assertThat(registry.containsBeanDefinition("legacySingletonByMethod"), is(false));
+        verify(indexedFilter, atLeastOnce()).match(any(MetadataReader.class), any(MetadataReaderFactory.class));
+    }
+
+    @Test
+    public void indexIsLoadedByTheBeanClassLoader(@TempDir Path dir) throws IOException {
+        Files.createDirectories(dir.resolve("META-INF"));
+        Files.write(dir.resolve(LegacyBeanIndex.INDEX_LOCATION), ("[" + LegacyBeanIndexTest.INDEXED + "]\n"
+                + "webapp\t" + LegacySingletonByField.class.getName() + "\tfield\tINSTANCE\tsingleton\n").getBytes(UTF_8));
+        LegacyBeanRegistryPostProcessor indexed = createIndexedProcessor(
+                new LegacySingletonFieldFilter(MemberPredicates.named("INSTANCE")), new AnnotationBeanNameGenerator());
+        indexed.setEnvironment(new StandardEnvironment());
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.setBeanClassLoader(new URLClassLoader(new URL[]{dir.toUri().toURL()}, null));
+
+        indexed.postProcessBeanDefinitionRegistry(beanFactory);
+
+        assertThat(beanFactory.containsBeanDefinition("webapp"), is(true));
+        assertThat(beanFactory.containsBeanDefinition("legacySingletonByField"), is(false));
+    }
+
+    @Test
+    public void allMissingFactoryBeansAreReportedAtOnce() {
+        LegacyBeanRegistryPostProcessor missing = new LegacyBeanRegistryPostProcessor(singletonList(filter),
+                Arrays.asList(new LegacyFactoryBeanScanner(() -> NonSingletonBean.class, method -> true, SCOPE_SINGLETON),
+                        new LegacyFactoryBeanScanner(() -> LegacyFactoryBean.class, method -> true, SCOPE_SINGLETON)), new AnnotationBeanNameGenerator(), Ordered.LOWEST_PRECEDENCE, "example.legacy");
+        missing.setEnvironment(new StandardEnvironment());
+        lenient().when(filter.match(any(MetadataReader.class), any(MetadataReaderFactory.class)))
+                .thenReturn(false);
+
+        FatalBeanException actual = assertThrows(FatalBeanException.class,
+                () -> missing.postProcessBeanDefinitionRegistry(new SimpleBeanDefinitionRegistry()));
+
+        assertThat(actual.getMessage(), containsString(NonSingletonBean.class.getName()));
+        assertThat(actual.getMessage(), containsString(LegacyFactoryBean.class.getName()));
+    }
+
+    @Test
+    public void unresolvableFactoryTypesAreReportedWithMissingFactoryBeans() {
+        LegacyBeanRegistryPostProcessor unresolvable = (LegacyBeanRegistryPostProcessor) legacyPackages("example.legacy")
+                .singletonsFrom().fields(MemberPredicates.named("NONE"))
+                .factory("example.legacy.UnknownFactory").singletons(method -> true)
+                .factory("example.legacy.OtherUnknownFactory").prototypes(method -> true)
+                .factory(LegacyFactoryBean.class).singletons(method -> true)
+                .build();
+        unresolvable.setEnvironment(new MockEnvironment().withProperty(LegacyBeanIndex.IGNORE_INDEX_PROPERTY, "true"));
+
+        FatalBeanException actual = assertThrows(FatalBeanException.class,
+                () -> unresolvable.postProcessBeanDefinitionRegistry(new SimpleBeanDefinitionRegistry()));
+
+        assertThat(actual.getMessage(), containsString("example.legacy.UnknownFactory"));
+        assertThat(actual.getMessage(), containsString("example.legacy.OtherUnknownFactory"));
+        assertThat(actual.getMessage(), containsString(LegacyFactoryBean.class.getName()));
+    }
+
+    @Test
+    public void factoryBeansAreLookedUpInRegistry() {
+        SimpleBeanDefinitionRegistry registry = new SimpleBeanDefinitionRegistry();
+
+        tested.postProcessBeanDefinitionRegistry(registry);
+
+        verify(factory).apply(any(LegacyFactoryBeanIndex.class));
+        verify(factory, never()).apply(any(BeanDefinitionRegistry.class));
+    }
+
+    @Test
+    public void allPhasesAreRecordedAsStartupSteps() {
+        ApplicationStartup startup = Mockito.mock(ApplicationStartup.class);
+        StartupStep step = Mockito.mock(StartupStep.class, Mockito.RETURNS_SELF);
+        when(startup.start(anyString())).thenReturn(step);
+        tested.setApplicationStartup(startup);
+
+        tested.postProcessBeanDefinitionRegistry(new SimpleBeanDefinitionRegistry());
+
+        InOrder order = inOrder(startup);
+        order.verify(startup).start("diergo.spring.legacy.post-process");
+        order.verify(startup).start("diergo.spring.legacy.scan");
+        order.verify(startup).start("diergo.spring.legacy.filter");
+        order.verify(startup).start("diergo.spring.legacy.register");
+        order.verify(startup).start("diergo.spring.legacy.factory");
+        verify(step).tag("basePackage", "example");
+        verify(step).tag("indexed", "false");
+        verify(step).tag("factoryType", LegacySingletonByField.class.getName());
+        verify(step, times(2)).tag(eq("classesMatched"), anyString());
+        verify(step).tag(eq("classesVisited"), anyString());
+        verify(step).tag(eq("classesEvaluated"), anyString());
+        verify(step).tag(eq("matchMillis"), anyString());
+        verify(step, times(5)).end();
+    }
+
+    @Test
+    public void indexedRegistrationIsRecordedAsStartupStep() {
+        ApplicationStartup startup = Mockito.mock(ApplicationStartup.class);
+        StartupStep step = Mockito.mock(StartupStep.class, Mockito.RETURNS_SELF);
+        when(startup.start(anyString())).thenReturn(step);
+        LegacyBeanRegistryPostProcessor indexed = createIndexedProcessor(
+                new LegacySingletonFieldFilter(MemberPredicates.named("INSTANCE")), new AnnotationBeanNameGenerator());
+        indexed.setEnvironment(new StandardEnvironment());
+        indexed.setApplicationStartup(startup);
+
+        indexed.postProcessBeanDefinitionRegistry(new SimpleBeanDefinitionRegistry());
+
+        verify(startup, never()).start("diergo.spring.legacy.scan");
+        verify(step).tag("source", "index");
+        verify(step).tag("definitionsRegistered", "2");
+    }
+
+    @Test
+    public void scanResultsAreCachedForNextStart(@TempDir Path directory) {
+        Path file = directory.resolve("legacy.bin");
+        StartupStep step = Mockito.mock(StartupStep.class, Mockito.RETURNS_SELF);
+        LegacyBeanRegistryPostProcessor first = createCachingProcessor(file, step);
+        LegacyBeanRegistryPostProcessor second = createCachingProcessor(file, step);
+        SimpleBeanDefinitionRegistry registry = new SimpleBeanDefinitionRegistry();
+
+        first.postProcessBeanDefinitionRegistry(new SimpleBeanDefinitionRegistry());
+        second.postProcessBeanDefinitionRegistry(registry);
+
+        InOrder order = inOrder(step);
+        order.verify(step).tag("source", "scan");
+        order.verify(step).tag("source", "cache");
+        assertThat(registry.getBeanDefinition("legacySingletonByField").getAttribute(LegacySingletonFieldFilter.FIELD_ATTRIBUTE),
+                is("INSTANCE"));
+    }
+
+    @Test
+    public void sharedScanResultsAreRegisteredByOtherContexts() {
+        StartupStep step = Mockito.mock(StartupStep.class, Mockito.RETURNS_SELF);
+        LegacyBeanRegistryPostProcessor first = createSharingProcessor(
+                new LegacySingletonFieldFilter(MemberPredicates.named("INSTANCE")), "example.legacy", name -> step);
+        LegacyBeanRegistryPostProcessor second = createSharingProcessor(
+                new LegacySingletonFieldFilter(MemberPredicates.named("INSTANCE")), "example.legacy", name -> step);
+        SimpleBeanDefinitionRegistry registry = new SimpleBeanDefinitionRegistry();
+
+        first.postProcessBeanDefinitionRegistry(new SimpleBeanDefinitionRegistry());
+        second.postProcessBeanDefinitionRegistry(registry);
+
+        InOrder order = inOrder(step);
+        order.verify(step).tag("source", "scan");
+        order.verify(step).tag("source", "shared");
+        assertThat(registry.getBeanDefinition("legacySingletonByField").getAttribute(LegacySingletonFieldFilter.FIELD_ATTRIBUTE),
+                is("INSTANCE"));
+    }
+
+    @Test
+    public void sharedScanResultsConflictingWithOtherLegacyBeansAreRejected() {
+        StartupStep step = Mockito.mock(StartupStep.class, Mockito.RETURNS_SELF);
+        LegacyBeanRegistryPostProcessor first = createSharingProcessor(
+                new LegacySingletonFieldFilter(MemberPredicates.named("INSTANCE")), "example.legacy", name -> step);
+        LegacyBeanRegistryPostProcessor second = createSharingProcessor(
+                new LegacySingletonFieldFilter(MemberPredicates.named("INSTANCE")), "example.legacy", name -> step);
+        SimpleBeanDefinitionRegistry registry = new SimpleBeanDefinitionRegistry();
+        registry.registerBeanDefinition("legacySingletonByField", new LegacyBeanIndex.Entry("legacySingletonByField",
+                LegacySingletonByMethod.class.getName(), false, "getInstance", SCOPE_SINGLETON).toBeanDefinition());
+
+        first.postProcessBeanDefinitionRegistry(new SimpleBeanDefinitionRegistry());
+        BeanDefinitionStoreException actual = assertThrows(BeanDefinitionStoreException.class,
+                () -> second.postProcessBeanDefinitionRegistry(registry));
+
+        assertThat(actual.getMessage(), containsString("legacySingletonByField"));
+    }
+
+    @Test
+    public void sharedScanResultsDoNotReplaceBeansRegisteredOtherwise() {
+        StartupStep step = Mockito.mock(StartupStep.class, Mockito.RETURNS_SELF);
+        LegacyBeanRegistryPostProcessor first = createSharingProcessor(
+                new LegacySingletonFieldFilter(MemberPredicates.named("INSTANCE")), "example.legacy", name -> step);
+        LegacyBeanRegistryPostProcessor second = createSharingProcessor(
+                new LegacySingletonFieldFilter(MemberPredicates.named("INSTANCE")), "example.legacy", name -> step);
+        SimpleBeanDefinitionRegistry registry = new SimpleBeanDefinitionRegistry();
+        RootBeanDefinition explicit = new RootBeanDefinition(String.class);
+        registry.registerBeanDefinition("legacySingletonByField", explicit);
+
+        first.postProcessBeanDefinitionRegistry(new SimpleBeanDefinitionRegistry());
+        second.postProcessBeanDefinitionRegistry(registry);
+        second.postProcessBeanDefinitionRegistry(new SimpleBeanDefinitionRegistry());
+
+        assertThat(registry.getBeanDefinition("legacySingletonByField"), is(sameInstance(explicit)));
+    }
+
+    @Test
+    public void sharedScanResultsAreNotRegisteredWithOtherBeanNaming() {
+        StartupStep step = Mockito.mock(StartupStep.class, Mockito.RETURNS_SELF);
+        LegacyBeanRegistryPostProcessor first = createSharingProcessor(
+                new LegacySingletonFieldFilter(MemberPredicates.named("INSTANCE")), "example.legacy", name -> step);
+        LegacyBeanRegistryPostProcessor second = createSharingProcessor(
+                new LegacySingletonFieldFilter(MemberPredicates.named("INSTANCE")), "example.legacy", name -> step,
+                new DefaultBeanNameGenerator());
+        SimpleBeanDefinitionRegistry registry = new SimpleBeanDefinitionRegistry();
+
+        first.postProcessBeanDefinitionRegistry(new SimpleBeanDefinitionRegistry());
+        second.postProcessBeanDefinitionRegistry(registry);
+
+        verify(step, never()).tag("source", "shared");
+        assertThat(registry.containsBeanDefinition("legacySingletonByField"), is(false));
+    }
+
+    @Test
+    public void scanResultsOfCustomChecksAreNotShared() {
+        StartupStep step = Mockito.mock(StartupStep.class, Mockito.RETURNS_SELF);
+        LegacyBeanRegistryPostProcessor first = createSharingProcessor(
+                new LegacySingletonFieldFilter(field -> field.getName().equals("INSTANCE")), "example.legacy", name -> step);
+        LegacyBeanRegistryPostProcessor second = createSharingProcessor(
+                new LegacySingletonFieldFilter(field -> false), "example.legacy", name -> step);
+        SimpleBeanDefinitionRegistry registry = new SimpleBeanDefinitionRegistry();
+
+        first.postProcessBeanDefinitionRegistry(new SimpleBeanDefinitionRegistry());
+        second.postProcessBeanDefinitionRegistry(registry);
+
+        verify(step, never()).tag("source", "shared");
+        assertThat(registry.containsBeanDefinition("legacySingletonByField"), is(false));
+    }
+
+    @Test
+    public void sharingProcessorsOfRegistryScanTogether() {
+        List<String> steps = new ArrayList<>();
+        ApplicationStartup startup = name -> {
+            steps.add(name);
+            return Mockito.mock(StartupStep.class, Mockito.RETURNS_SELF);
+        };
+        LegacyBeanRegistryPostProcessor fields = createSharingProcessor(
+                new LegacySingletonFieldFilter(MemberPredicates.named("INSTANCE")), "example.legacy", startup);
+        LegacyBeanRegistryPostProcessor methods = createSharingProcessor(
+                new LegacyBeanMethodFilter(SCOPE_SINGLETON, MemberPredicates.named("getInstance")), "example", startup);
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("fields", fields);
+        beanFactory.registerSingleton("methods", methods);
+        SimpleBeanDefinitionRegistry registry = new SimpleBeanDefinitionRegistry();
+
+        fields.postProcessBeanDefinitionRegistry(beanFactory);
+        methods.postProcessBeanDefinitionRegistry(registry);
+
+        assertThat(steps.stream().filter("diergo.spring.legacy.scan"::equals).count(), is(1L));
+        assertThat(beanFactory.containsBeanDefinition("legacySingletonByField"), is(true));
+        assertThat(beanFactory.containsBeanDefinition("legacySingletonByMethod"), is(false));
+        assertThat(registry.containsBeanDefinition("legacySingletonByMethod"), is(true));
+        assertThat(registry.containsBeanDefinition("legacySingletonByField"), is(false));
+    }
+
+    @Test
+    public void factoriesDiscoveredWhileScanningRegisterBeans() {
+        LegacyBeanRegistryPostProcessor processor = (LegacyBeanRegistryPostProcessor) LegacyBeanRegistryPostProcessorBuilder
+                .legacyPackages("example.legacy")
+                .beanNaming(new AnnotationBeanNameGenerator())
+                .metadataMatching()
+                .singletonsFrom().methods(MemberPredicates.named("getInstance"))
+                .factories(type -> type.getSimpleName().endsWith("FactoryBean")).prototypes(MemberPredicates.named("createPrototype"))
+                .build();
+        processor.setEnvironment(new MockEnvironment().withProperty(LegacyBeanIndex.IGNORE_INDEX_PROPERTY, "true"));
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+        processor.postProcessBeanDefinitionRegistry(beanFactory);
+
+        BeanDefinition created = beanFactory.getBeanDefinition("createdPrototype");
+        assertThat(created.getFactoryBeanName(), is("legacyFactoryBean"));
+        assertThat(created.getScope(), is(BeanDefinition.SCOPE_PROTOTYPE));
+        assertThat(beanFactory.containsBeanDefinition("createdSingleton"), is(false));
+    }
+
+    @Test
+    public void sharedAndCachedScanResultsAreRegisteredWithScannedTypes(@TempDir Path directory) {
+        Map<String, String> scanned = getResolvableTypes(legacyPackages("example.generic"));
+
+        assertThat(scanned.get("typedRegistry"), is("example.generic.TypedRegistry<java.lang.String>"));
+        assertThat(getResolvableTypes(legacyPackages("example.generic").shareScanResults()), is(scanned));
+        assertThat(getResolvableTypes(legacyPackages("example.generic").cacheScanResults(directory.resolve("legacy.bin"))),
+                is(scanned));
+    }
+
+    @AfterEach
+    void clearSharedScanResults() {
+        LegacyScanResults.clear();
+    }
+
     @BeforeEach
     void createProcessor() {
         tested = new LegacyBeanRegistryPostProcessor(singletonList(filter), singletonList(factory),
                 new AnnotationBeanNameGenerator(), Ordered.LOWEST_PRECEDENCE, "example");
         tested.setEnvironment(new StandardEnvironment());
-        when(filter.match(any(MetadataReader.class), any(MetadataReaderFactory.class)))
+        lenient().when(filter.match(any(MetadataReader.class), any(MetadataReaderFactory.class)))
                 .thenReturn(true);
-        when(filter.supports(any(BeanDefinition.class)))
+        lenient().when(filter.supports(any(BeanDefinition.class)))
                 .thenReturn(true);
+        lenient().when(factory.getFactoryTypeName())
+                .thenReturn(LegacySingletonByField.class.getName());
+    }
+
+    private static LegacyBeanRegistryPostProcessor createIndexedProcessor(LegacySingletonFieldFilter fieldFilter,
+                                                                         BeanNameGenerator beanNameGenerator) {
+        return new LegacyBeanRegistryPostProcessor(
+                Arrays.asList(fieldFilter, new LegacyBeanMethodFilter(SCOPE_SINGLETON, MemberPredicates.named("getInstance"))),
+                emptyList(), beanNameGenerator, Ordered.LOWEST_PRECEDENCE, "example.legacy");
+    }
+
+    private static LegacyBeanRegistryPostProcessor createCachingProcessor(Path file, StartupStep step) {
+        LegacyBeanRegistryPostProcessor processor = new LegacyBeanRegistryPostProcessor(
+                singletonList(new LegacySingletonFieldFilter(MemberPredicates.named("INSTANCE"))), emptyList(),
+                new AnnotationBeanNameGenerator(), Ordered.LOWEST_PRECEDENCE, "example.legacy");
+        processor.setEnvironment(new MockEnvironment().withProperty(LegacyBeanIndex.IGNORE_INDEX_PROPERTY, "true"));
+        processor.setApplicationStartup(name -> step);
+        processor.setScanResultCache(new LegacyScanResultCache(file));
+        return processor;
+    }
+
+    private static LegacyBeanRegistryPostProcessor createSharingProcessor(CustomizingTypeFilter<?> filter, String basePackage,
+                                                                         ApplicationStartup startup) {
+        return createSharingProcessor(filter, basePackage, startup, new AnnotationBeanNameGenerator());
+    }
+
+    private static LegacyBeanRegistryPostProcessor createSharingProcessor(CustomizingTypeFilter<?> filter, String basePackage,
+                                                                         ApplicationStartup startup, BeanNameGenerator beanNameGenerator) {
+        LegacyBeanRegistryPostProcessor processor = new LegacyBeanRegistryPostProcessor(singletonList(filter), emptyList(),
+                beanNameGenerator, Ordered.LOWEST_PRECEDENCE, basePackage);
+        processor.setEnvironment(new MockEnvironment().withProperty(LegacyBeanIndex.IGNORE_INDEX_PROPERTY, "true"));
+        processor.setApplicationStartup(startup);
+        processor.setSharedScanning(true);
+        return processor;
+    }
+
+    private static Map<String, String> getResolvableTypes(LegacyBeanRegistryPostProcessorBuilder builder) {
+        LegacyBeanRegistryPostProcessor processor = (LegacyBeanRegistryPostProcessor) builder
+                .beanNaming(AnnotationBeanNameGenerator.INSTANCE)
+                .singletonsFrom().fields(MemberPredicates.named("INSTANCE"))
+                .singletonsFrom().methods(MemberPredicates.named("getInstance"))
+                .build();
+        processor.setEnvironment(new MockEnvironment().withProperty(LegacyBeanIndex.IGNORE_INDEX_PROPERTY, "true"));
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+        processor.postProcessBeanDefinitionRegistry(beanFactory);
+
+        return Stream.of(beanFactory.getBeanDefinitionNames())
+                .filter(name -> beanFactory.getBeanDefinition(name).getBeanClassName().startsWith("example"))
+                .collect(toMap(Function.identity(), name -> beanFactory.getBeanDefinition(name).getResolvableType().toString()));
     }
 
     private Map<String, BeanDefinition> getExampleBeanDefinitions(BeanDefinitionRegistry registry) {
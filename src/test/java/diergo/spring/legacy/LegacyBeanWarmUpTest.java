@@ -0,0 +1,195 @@
+package diergo.spring.legacy;
+
+import static diergo.spring.legacy.LegacyBeanRegistryPostProcessorBuilder.legacyPackages;
+import static diergo.spring.legacy.MemberPredicates.named;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.annotation.AnnotationBeanNameGenerator;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.OverridingClassLoader;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.util.ClassUtils;
+
+public class LegacyBeanWarmUpTest {
+
+    private final List<String> created = new CopyOnWriteArrayList<>();
+    private ExecutorService executor;
+    private GenericApplicationContext context;
+
+    @Test
+    public void lazySingletonsAreCreatedAfterRefresh() {
+        registerLazySingleton("first", () -> "first");
+        registerLazySingleton("second", () -> "second");
+        LegacyBeanWarmUp warmUp = registerWarmUp("first", "second");
+
+        context.refresh();
+        warmUp.completion().join();
+
+        assertThat(context.getBeanFactory().containsSingleton("first"), is(true));
+        assertThat(context.getBeanFactory().containsSingleton("second"), is(true));
+    }
+
+    @Test
+    public void dependenciesAreWarmedUpFirst() {
+        registerLazySingleton("dependent", () -> "dependent").setDependsOn("dependency");
+        registerLazySingleton("dependency", () -> {
+            sleep();
+            return "dependency";
+        });
+        LegacyBeanWarmUp warmUp = registerWarmUp("dependent", "dependency");
+
+        context.refresh();
+        warmUp.completion().join();
+
+        assertThat(created, contains("dependency", "dependent"));
+    }
+
+    @Test
+    public void failuresAreReportedAfterAllBeansWarmedUp() {
+        registerLazySingleton("failing", () -> {
+            throw new IllegalStateException("broken");
+        });
+        registerLazySingleton("working", () -> "working");
+        LegacyBeanWarmUp warmUp = registerWarmUp("failing", "working");
+
+        context.refresh();
+
+        assertThrows(CompletionException.class, () -> warmUp.completion().join());
+        assertThat(context.getBeanFactory().containsSingleton("working"), is(true));
+    }
+
+    @Test
+    public void circularStaticInitializersDoNotDeadlock() throws Exception {
+        ClassLoader classLoader = new CircularFixtureClassLoader(getClass().getClassLoader());
+        context.setClassLoader(classLoader);
+        registerLazyLegacySingleton("chicken", "example.dependent.Chicken", classLoader);
+        registerLazyLegacySingleton("egg", "example.dependent.Egg", classLoader);
+        LegacyBeanWarmUp warmUp = registerWarmUp("chicken", "egg");
+
+        context.refresh();
+        warmUp.completion().get(10, TimeUnit.SECONDS);
+
+        assertThat(context.getBeanFactory().containsSingleton("chicken"), is(true));
+        assertThat(context.getBeanFactory().containsSingleton("egg"), is(true));
+    }
+
+    @Test
+    public void legacySingletonsRegisteredAreWarmedUp() {
+        LegacyBeanRegistryPostProcessor processor = (LegacyBeanRegistryPostProcessor) legacyPackages("example.legacy")
+                .beanNaming(AnnotationBeanNameGenerator.INSTANCE)
+                .singletonsFrom().fields(named("INSTANCE"))
+                .warmUp(executor)
+                .build();
+        processor.setEnvironment(new StandardEnvironment());
+        context.addBeanFactoryPostProcessor(processor);
+
+        context.refresh();
+        context.getBean(LegacyBeanWarmUp.class).completion().join();
+
+        assertThat(context.getBeanFactory().containsSingleton("legacySingletonByField"), is(true));
+    }
+
+    @BeforeEach
+    void createContext() {
+        executor = Executors.newFixedThreadPool(4);
+        context = new GenericApplicationContext();
+    }
+
+    @AfterEach
+    void closeContext() {
+        context.close();
+        executor.shutdown();
+    }
+
+    private RootBeanDefinition registerLazySingleton(String beanName, Supplier<String> supplier) {
+        RootBeanDefinition bd = new RootBeanDefinition(String.class, () -> {
+            String bean = supplier.get();
+            created.add(bean);
+            return bean;
+        });
+        bd.setLazyInit(true);
+        context.registerBeanDefinition(beanName, bd);
+        return bd;
+    }
+
+    private void registerLazyLegacySingleton(String beanName, String className, ClassLoader classLoader) {
+        RootBeanDefinition bd = new RootBeanDefinition();
+        bd.setBeanClassName(className);
+        bd.setTargetType(Object.class);
+        bd.setInstanceSupplier(() -> {
+            try {
+                return ClassUtils.forName(className, classLoader).getField("INSTANCE").get(null);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        bd.setLazyInit(true);
+        context.registerBeanDefinition(beanName, bd);
+    }
+
+    private LegacyBeanWarmUp registerWarmUp(String... beanNames) {
+        LegacyBeanWarmUp warmUp = new LegacyBeanWarmUp(executor, new LinkedHashSet<>(Arrays.asList(beanNames)));
+        context.getBeanFactory().registerSingleton("warmUp", warmUp);
+        warmUp.setBeanFactory(context.getBeanFactory());
+        return warmUp;
+    }
+
+    /**
+     * Loads the circular fixtures again, so their classes are initialized by the warm-up. The class of the egg is passed
+     * late to the static initializer of the chicken, so initializing the egg in parallel starts before.
+     */
+    private static final class CircularFixtureClassLoader extends OverridingClassLoader {
+
+        static {
+            ClassLoader.registerAsParallelCapable();
+        }
+
+        CircularFixtureClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        @Override
+        protected boolean isEligibleForOverriding(String className) {
+            return className.startsWith("example.dependent.");
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            Class<?> loaded;
+            synchronized (getClassLoadingLock(name)) {
+                loaded = super.loadClass(name, resolve);
+            }
+            if (name.equals("example.dependent.Egg") && Stream.of(Thread.currentThread().getStackTrace())
+                    .anyMatch(element -> element.getClassName().equals("example.dependent.Chicken")
+                            && element.getMethodName().equals("<clinit>"))) {
+                sleep();
+            }
+            return loaded;
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
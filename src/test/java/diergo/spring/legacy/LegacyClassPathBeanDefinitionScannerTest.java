@@ -0,0 +1,197 @@
+package diergo.spring.legacy;
+
+import static diergo.spring.legacy.MemberPredicates.anyConstant;
+import static diergo.spring.legacy.MemberPredicates.anyGetter;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.beans.factory.config.BeanDefinition.SCOPE_SINGLETON;
+
+import example.generic.TypedFactory;
+import example.generic.TypedRegistry;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.beans.factory.support.SimpleBeanDefinitionRegistry;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.core.type.filter.TypeFilter;
+import org.springframework.util.ReflectionUtils;
+
+public class LegacyClassPathBeanDefinitionScannerTest {
+
+    private static final String[] PACKAGES = {"example.legacy", "example.spring", "org.springframework.util.comparator"};
+
+    private ExecutorService executor;
+
+    @Test
+    public void parallelScanningRegistersSameBeansInSameOrder() {
+        List<String> sequential = scan(null, null, (reader, factory) -> true, PACKAGES);
+        List<String> parallel = scan(executor, null, (reader, factory) -> true, PACKAGES);
+
+        assertThat(parallel, is(sequential));
+        assertThat(parallel, hasItems("legacySingletonByField", "independentSpringBean", "comparableComparator"));
+    }
+
+    @Test
+    public void parallelScanningCustomizesBeanDefinitions() {
+        LegacySingletonFieldFilter fields = new LegacySingletonFieldFilter(anyConstant());
+        LegacyBeanMethodFilter methods = new LegacyBeanMethodFilter(SCOPE_SINGLETON, anyGetter());
+        SimpleBeanDefinitionRegistry registry = new SimpleBeanDefinitionRegistry();
+        LegacyClassPathBeanDefinitionScanner scanner = new LegacyClassPathBeanDefinitionScanner(registry,
+                new StandardEnvironment(), bd -> (fields.supports(bd) ? fields : methods).customize(bd));
+        scanner.setIncludeAnnotationConfig(false);
+        scanner.addIncludeFilter(fields);
+        scanner.addIncludeFilter(methods);
+        scanner.setExecutor(executor);
+
+        scanner.scan("example.legacy");
+
+        assertThat(registry.getBeanDefinition("legacySingletonByMethod").getFactoryMethodName(), is("getInstance"));
+        assertThat(registry.getBeanDefinition("legacySingletonByField").getAttribute(LegacySingletonFieldFilter.FIELD_ATTRIBUTE),
+                is("INSTANCE"));
+    }
+
+    @Test
+    public void scannedBeansAreMatchedByGenericTypeWithoutCreation() {
+        LegacySingletonFieldFilter fields = new LegacySingletonFieldFilter(anyConstant());
+        LegacyBeanMethodFilter methods = new LegacyBeanMethodFilter(SCOPE_SINGLETON, anyGetter());
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        LegacyClassPathBeanDefinitionScanner scanner = new LegacyClassPathBeanDefinitionScanner(beanFactory,
+                new StandardEnvironment(), bd -> (fields.supports(bd) ? fields : methods).customize(bd));
+        scanner.setIncludeAnnotationConfig(false);
+        scanner.addIncludeFilter(fields);
+        scanner.addIncludeFilter(methods);
+
+        scanner.scan("example.generic");
+
+        assertThat(beanFactory.getBeanNamesForType(ResolvableType.forClassWithGenerics(TypedRegistry.class, String.class)),
+                is(new String[]{"typedRegistry"}));
+        assertThat(beanFactory.getBeanNamesForType(ResolvableType.forClassWithGenerics(TypedRegistry.class, Integer.class)),
+                is(new String[0]));
+        assertThat(beanFactory.getBeanNamesForType(ResolvableType.forClassWithGenerics(TypedFactory.class, Integer.class)),
+                is(new String[]{"typedFactory"}));
+        assertThat(((RootBeanDefinition) beanFactory.getBeanDefinition("typedFactory")).getResolvedFactoryMethod(),
+                is(ReflectionUtils.findMethod(TypedFactory.class, "getInstance")));
+        assertThat(beanFactory.containsSingleton("typedRegistry"), is(false));
+        assertThat(beanFactory.containsSingleton("typedFactory"), is(false));
+    }
+
+    @Test
+    public void conflictingBeanNamesAreRejected() {
+        LegacySingletonFieldFilter fields = new LegacySingletonFieldFilter(anyConstant());
+        LegacyBeanMethodFilter methods = new LegacyBeanMethodFilter(SCOPE_SINGLETON, anyGetter());
+        LegacyClassPathBeanDefinitionScanner scanner = new LegacyClassPathBeanDefinitionScanner(new SimpleBeanDefinitionRegistry(),
+                new StandardEnvironment(), bd -> (fields.supports(bd) ? fields : methods).customize(bd));
+        scanner.setIncludeAnnotationConfig(false);
+        scanner.setBeanNameGenerator((bd, registry) -> "legacy");
+        scanner.addIncludeFilter(fields);
+        scanner.addIncludeFilter(methods);
+
+        IllegalStateException actual = assertThrows(IllegalStateException.class, () -> scanner.scan("example.legacy"));
+
+        assertThat(actual.getMessage(), containsString("conflicts with existing"));
+    }
+
+    @Test
+    public void failuresOfParallelScanningAreRethrown() {
+        IllegalStateException failure = new IllegalStateException("test");
+
+        IllegalStateException actual = assertThrows(IllegalStateException.class,
+                () -> scan(executor, null, (reader, factory) -> {
+                    throw failure;
+                }, "example.legacy"));
+
+        assertThat(actual, is(sameInstance(failure)));
+    }
+
+    @Test
+    public void packagesNotScannedInParallelAreScannedSequentially() {
+        LegacyClassPathBeanDefinitionScanner scanner = new LegacyClassPathBeanDefinitionScanner(
+                new SimpleBeanDefinitionRegistry(), new StandardEnvironment(), bd -> {
+                });
+        scanner.addIncludeFilter((reader, factory) -> true);
+        scanner.setExecutor(executor);
+
+        assertThat(scanner.findCandidateComponents("example.legacy").isEmpty(), is(not(true)));
+    }
+
+    @Test
+    public void parallelScanningRecordsSameCountsAsSequential() {
+        assertThat(recordScanTags(executor), is(recordScanTags(null)));
+    }
+
+    @Test
+    public void incrementalScanningRegistersSameBeansEvaluatingChangedClassesOnly() {
+        List<String> expected = scan(null, null, (reader, factory) -> true, PACKAGES);
+        LegacyScanState state = new LegacyScanState();
+        scan(executor, state, (reader, factory) -> true, PACKAGES);
+
+        List<String> actual = scan(null, state, (reader, factory) -> {
+            throw new AssertionError("unchanged class evaluated");
+        }, PACKAGES);
+
+        assertThat(actual, is(expected));
+        assertThat(scan(executor, state, (reader, factory) -> true, PACKAGES), is(expected));
+    }
+
+    @BeforeEach
+    void createExecutor() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void shutdownExecutor() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    private static Map<String, String> recordScanTags(ExecutorService executor) {
+        Map<String, String> tags = new HashMap<>();
+        StartupStep step = mock(StartupStep.class, RETURNS_SELF);
+        when(step.tag(anyString(), anyString())).thenAnswer(invocation -> {
+            tags.put(invocation.getArgument(0), invocation.getArgument(1));
+            return step;
+        });
+        LegacyClassPathBeanDefinitionScanner scanner = new LegacyClassPathBeanDefinitionScanner(
+                new SimpleBeanDefinitionRegistry(), new StandardEnvironment(), bd -> {
+                });
+        scanner.setApplicationStartup(name -> step);
+        scanner.addIncludeFilter(new LegacySingletonFieldFilter(anyConstant()));
+        scanner.setExecutor(executor);
+        scanner.scan("example.legacy");
+        assertThat(tags.get("classesMatched"), is("1"));
+        return tags;
+    }
+
+    private static List<String> scan(ExecutorService executor, LegacyScanState state, TypeFilter filter, String... packages) {
+        DefaultListableBeanFactory registry = new DefaultListableBeanFactory();
+        LegacyClassPathBeanDefinitionScanner scanner = new LegacyClassPathBeanDefinitionScanner(registry,
+                new StandardEnvironment(), bd -> {
+                });
+        scanner.setIncludeAnnotationConfig(false);
+        scanner.addIncludeFilter(filter);
+        scanner.setExecutor(executor);
+        scanner.setScanState(state);
+        scanner.scan(packages);
+        return Arrays.asList(registry.getBeanDefinitionNames());
+    }
+}
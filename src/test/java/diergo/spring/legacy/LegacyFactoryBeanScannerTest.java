@@ -7,15 +7,27 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.FatalBeanException;
 import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.beans.factory.support.SimpleBeanDefinitionRegistry;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
 
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import static java.util.stream.Collectors.toList;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.isA;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.springframework.beans.factory.config.BeanDefinition.SCOPE_PROTOTYPE;
 import static org.springframework.beans.factory.config.BeanDefinition.SCOPE_SINGLETON;
@@ -64,6 +76,80 @@ class LegacyFactoryBeanScannerTest {
         assertThat(bd.getScope(), is(SCOPE_PROTOTYPE));
     }
 
+    @Test
+    void missingFactoryBeanInIndexCreatesNoBeanDefinitions() {
+        LegacyFactoryBeanScanner tested = new LegacyFactoryBeanScanner(() -> LegacyFactoryBean.class,
+                method -> true, SCOPE_SINGLETON);
+        LegacyFactoryBeanIndex index = new LegacyFactoryBeanIndex(registry);
+
+        assertThat(tested.apply(index).count(), is(0L));
+        assertThrows(FatalBeanException.class, index::checkMissing);
+    }
+
+    @Test
+    void factoryBeanAddedToIndexIsFound() {
+        LegacyFactoryBeanScanner tested = new LegacyFactoryBeanScanner(() -> LegacyFactoryBean.class,
+                method -> method.getName().startsWith("get"), SCOPE_SINGLETON);
+        LegacyFactoryBeanIndex index = new LegacyFactoryBeanIndex(registry);
+        index.add(new BeanDefinitionHolder(new RootBeanDefinition(LegacyFactoryBean.class), "created"));
+
+        List<BeanDefinition> actual = tested.apply(index).collect(toList());
+
+        assertThat(actual.get(0).getFactoryBeanName(), is("created"));
+        index.checkMissing();
+    }
+
+    @Test
+    void factoryBeanDefinitionOfBeanFactoryGetsAnInstanceSupplier() {
+        LegacyFactoryBeanScanner tested = new LegacyFactoryBeanScanner(() -> LegacyFactoryBean.class,
+                method -> method.getName().startsWith("create"), SCOPE_PROTOTYPE);
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("factory", new RootBeanDefinition(LegacyFactoryBean.class));
+
+        AbstractBeanDefinition actual = (AbstractBeanDefinition) tested.apply(beanFactory).findFirst().orElseThrow(AssertionError::new);
+
+        assertThat(actual.getInstanceSupplier().get(), isA(CreatedPrototype.class));
+    }
+
+    @Test
+    void factoryBeanDefinitionHasReturnTypeAsTargetType() {
+        LegacyFactoryBeanScanner tested = new LegacyFactoryBeanScanner(() -> LegacyFactoryBean.class,
+                method -> method.getName().startsWith("create"), SCOPE_PROTOTYPE);
+        registerFactoryBean();
+
+        RootBeanDefinition actual = (RootBeanDefinition) tested.apply(registry).findFirst().orElseThrow(AssertionError::new);
+
+        assertThat(actual.getTargetType(), is(CreatedPrototype.class));
+        assertThat(actual.getResolvedFactoryMethod(), is(ReflectionUtils.findMethod(LegacyFactoryBean.class, "createPrototype")));
+    }
+
+    @Test
+    void discoveredFactoryBeansCreateBeanDefinitions() {
+        LegacyFactoryBeanScanner tested = new LegacyFactoryBeanScanner(type -> type.getSimpleName().endsWith("FactoryBean"),
+                method -> method.getName().startsWith("create"), SCOPE_PROTOTYPE);
+        Map<String, Class<?>> types = new LinkedHashMap<>();
+        types.put("factory", LegacyFactoryBean.class);
+        types.put("singleton", CreatedSingleton.class);
+
+        List<BeanDefinition> actual = tested.discover(types, className -> Optional.empty(), registry).collect(toList());
+
+        assertThat(actual, hasSize(1));
+        assertThat(actual.get(0).getFactoryBeanName(), is("factory"));
+        assertThat(actual.get(0).getFactoryMethodName(), is("createPrototype"));
+    }
+
+    @Test
+    void discoveredFactoryBeanMethodsArePrecheckedByClassFileMembers() throws IOException {
+        List<LegacyMemberSignature> members = LegacyMemberSignature.read(new ClassPathResource(
+                ClassUtils.convertClassNameToResourcePath(LegacyFactoryBean.class.getName()) + ".class"));
+        Map<String, Class<?>> types = Collections.singletonMap("factory", LegacyFactoryBean.class);
+
+        assertThat(new LegacyFactoryBeanScanner(type -> true, MemberPredicates.named("createPrototype"), SCOPE_PROTOTYPE)
+                .discover(types, className -> Optional.of(members), registry).count(), is(1L));
+        assertThat(new LegacyFactoryBeanScanner(type -> true, MemberPredicates.named("getInstance"), SCOPE_SINGLETON)
+                .discover(types, className -> Optional.of(members), registry).count(), is(0L));
+    }
+
     @BeforeEach
     void createRegistry() {
         registry = new SimpleBeanDefinitionRegistry();
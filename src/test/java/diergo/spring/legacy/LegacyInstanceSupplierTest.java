@@ -0,0 +1,97 @@
+package diergo.spring.legacy;
+
+import example.legacy.CreatedPrototype;
+import example.legacy.LegacyFactoryBean;
+import example.legacy.LegacyPrototypeByStaticMethod;
+import example.legacy.LegacySingletonByField;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.util.ReflectionUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.isA;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LegacyInstanceSupplierTest {
+
+    @Test
+    public void fieldIsRead() {
+        LegacyInstanceSupplier tested = LegacyInstanceSupplier.ofField(new RootBeanDefinition(LegacySingletonByField.class),
+                "INSTANCE", type -> ReflectionUtils.findField(type, "INSTANCE"));
+
+        assertThat(tested.get(), is(sameInstance(LegacySingletonByField.INSTANCE)));
+    }
+
+    @Test
+    public void memberIsResolvedOnce() {
+        AtomicInteger lookups = new AtomicInteger();
+        LegacyInstanceSupplier tested = LegacyInstanceSupplier.ofStaticMethod(
+                new RootBeanDefinition(LegacyPrototypeByStaticMethod.class), "createInstance", type -> {
+                    lookups.incrementAndGet();
+                    return ReflectionUtils.findMethod(type, "createInstance");
+                });
+
+        Object first = tested.get();
+
+        assertThat(tested.get(), is(not(sameInstance(first))));
+        assertThat(lookups.get(), is(1));
+    }
+
+    @Test
+    public void beanClassIsResolvedByName() {
+        GenericBeanDefinition bd = new GenericBeanDefinition();
+        bd.setBeanClassName(LegacyPrototypeByStaticMethod.class.getName());
+        LegacyInstanceSupplier tested = LegacyInstanceSupplier.ofStaticMethod(bd, "createInstance",
+                type -> ReflectionUtils.findMethod(type, "createInstance"));
+
+        assertThat(tested.get(), isA(LegacyPrototypeByStaticMethod.class));
+    }
+
+    @Test
+    public void factoryMethodIsCalledOnFactoryBean() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("factory", new RootBeanDefinition(LegacyFactoryBean.class));
+        LegacyInstanceSupplier tested = LegacyInstanceSupplier.ofFactoryMethod(beanFactory, "factory",
+                ReflectionUtils.findMethod(LegacyFactoryBean.class, "createPrototype"));
+
+        assertThat(tested.get(), isA(CreatedPrototype.class));
+    }
+
+    @Test
+    public void missingMemberCannotCreateBean() {
+        GenericBeanDefinition bd = new GenericBeanDefinition();
+        bd.setBeanClassName("example.legacy.Missing");
+
+        assertThrows(BeanCreationException.class,
+                () -> LegacyInstanceSupplier.ofStaticMethod(new RootBeanDefinition(LegacyPrototypeByStaticMethod.class),
+                        "missing", type -> null).get());
+        assertThrows(BeanCreationException.class,
+                () -> LegacyInstanceSupplier.ofField(bd, "INSTANCE", type -> null).get());
+    }
+
+    @Test
+    public void failuresOfMemberAreWrapped() {
+        LegacyInstanceSupplier tested = LegacyInstanceSupplier.ofStaticMethod(new RootBeanDefinition(Failing.class),
+                "create", type -> ReflectionUtils.findMethod(type, "create"));
+
+        BeanCreationException actual = assertThrows(BeanCreationException.class, tested::get);
+
+        assertThat(actual.getCause(), isA(IllegalStateException.class));
+        assertThat(tested.toString(), is("static factory method create"));
+    }
+
+    static class Failing {
+
+        static Failing create() {
+            throw new IllegalStateException("test");
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package diergo.spring.legacy;
+
+import example.legacy.LegacySingletonByField;
+import example.legacy.LegacySingletonByMethod;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LegacyMemberSignatureTest {
+
+    @Test
+    public void staticFieldIsRead() throws IOException {
+        LegacyMemberSignature actual = read(LegacySingletonByField.class).get("field INSTANCE");
+
+        assertThat(actual.isField(), is(true));
+        assertThat(actual.getName(), is("INSTANCE"));
+        assertThat(Modifier.isStatic(actual.getModifiers()), is(true));
+        assertThat(Modifier.isPublic(actual.getModifiers()), is(true));
+        assertThat(actual.getTypeName(), is(LegacySingletonByField.class.getName()));
+        assertThat(actual.hasBeanType(), is(true));
+        assertThat(actual.getParameterCount(), is(0));
+    }
+
+    @Test
+    public void staticMethodIsRead() throws IOException {
+        Map<String, LegacyMemberSignature> members = read(LegacySingletonByMethod.class);
+        LegacyMemberSignature actual = members.get("method getInstance");
+
+        assertThat(actual.isField(), is(false));
+        assertThat(Modifier.isStatic(actual.getModifiers()), is(true));
+        assertThat(actual.getTypeName(), is(LegacySingletonByMethod.class.getName()));
+        assertThat(actual.hasBeanType(), is(true));
+        assertThat(members.size(), is(2));
+        assertThat(Modifier.isPrivate(members.get("field instance").getModifiers()), is(true));
+    }
+
+    @Test
+    public void primitiveAndArrayTypesAreNoBeanTypes() throws IOException {
+        Map<String, LegacyMemberSignature> members = read(SignatureExample.class);
+
+        assertThat(members.get("field count").hasBeanType(), is(false));
+        assertThat(members.get("method names").hasBeanType(), is(false));
+        assertThat(members.get("method nothing").hasBeanType(), is(false));
+        assertThat(members.get("method parameterized").getParameterCount(), is(2));
+    }
+
+    @Test
+    public void invalidClassFileCannotBeRead() {
+        assertThrows(IOException.class, () -> LegacyMemberSignature.read(new ByteArrayResource(new byte[]{1, 2, 3})));
+    }
+
+    private static Map<String, LegacyMemberSignature> read(Class<?> type) throws IOException {
+        List<LegacyMemberSignature> members = LegacyMemberSignature.read(
+                new ClassPathResource(type.getName().replace('.', '/') + ".class"));
+        return members.stream().collect(toMap(LegacyMemberSignature::toString, identity()));
+    }
+
+    @SuppressWarnings("unused")
+    static class SignatureExample {
+
+        static int count;
+
+        static String[] names() {
+            return new String[0];
+        }
+
+        static void nothing() {
+        }
+
+        static Object parameterized(String first, int second) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package diergo.spring.legacy;
+
+import example.legacy.LegacySingletonByMethod;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.springframework.beans.factory.config.ConfigurableBeanFactory.SCOPE_SINGLETON;
+
+public class LegacyScanCacheTest {
+
+    private final LegacyScanCache tested = new LegacyScanCache();
+
+    @Test
+    public void typeIsResolvedOnce() {
+        Optional<Class<?>> first = tested.getType(LegacySingletonByMethod.class.getName());
+
+        assertThat(first.isPresent(), is(true));
+        assertThat(tested.getType(LegacySingletonByMethod.class.getName()), sameInstance(first));
+    }
+
+    @Test
+    public void missingTypeIsResolvedEmpty() {
+        assertThat(tested.getType("example.legacy.Missing").isPresent(), is(false));
+    }
+
+    @Test
+    public void accessIsLookedUpOncePerFilter() {
+        AtomicInteger lookups = new AtomicInteger();
+        LegacyBeanMethodFilter first = new LegacyBeanMethodFilter(SCOPE_SINGLETON, method -> true);
+        LegacyBeanMethodFilter second = new LegacyBeanMethodFilter(SCOPE_SINGLETON, method -> true);
+
+        tested.getAccess(first, "test", name -> countedLookup(lookups));
+        tested.getAccess(first, "test", name -> countedLookup(lookups));
+        tested.getAccess(second, "test", name -> countedLookup(lookups));
+
+        assertThat(lookups.get(), is(2));
+    }
+
+    private static Optional<Method> countedLookup(AtomicInteger lookups) {
+        lookups.incrementAndGet();
+        return Optional.empty();
+    }
+}
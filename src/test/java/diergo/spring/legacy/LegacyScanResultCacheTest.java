@@ -0,0 +1,134 @@
+package diergo.spring.legacy;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.beans.factory.config.ConfigurableBeanFactory.SCOPE_SINGLETON;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.BeanNameGenerator;
+import org.springframework.beans.factory.support.DefaultBeanNameGenerator;
+import org.springframework.context.annotation.AnnotationBeanNameGenerator;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+
+public class LegacyScanResultCacheTest {
+
+    private static final List<LegacyBeanIndex.Entry> ENTRIES = Arrays.asList(
+            LegacyBeanIndex.Entry.parse("legacySingletonByField\texample.legacy.LegacySingletonByField\tfield\tINSTANCE\tsingleton"),
+            LegacyBeanIndex.Entry.parse("legacySingletonByMethod\texample.legacy.LegacySingletonByMethod\tmethod\tgetInstance\tsingleton"));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void savedEntriesAreLoadedWithSameFingerprint() {
+        LegacyScanResultCache tested = new LegacyScanResultCache(directory.resolve("cache/legacy.bin"));
+
+        tested.save("abc", ENTRIES);
+        List<LegacyBeanIndex.Entry> actual = tested.load("abc").orElseThrow(AssertionError::new);
+
+        assertThat(actual, hasSize(2));
+        assertThat(actual.get(0).format(), is(ENTRIES.get(0).format()));
+        assertThat(actual.get(1).format(), is(ENTRIES.get(1).format()));
+    }
+
+    @Test
+    public void entriesOfOtherFingerprintAreIgnored() {
+        LegacyScanResultCache tested = new LegacyScanResultCache(directory.resolve("legacy.bin"));
+
+        tested.save("abc", ENTRIES);
+
+        assertThat(tested.load("def").isPresent(), is(false));
+    }
+
+    @Test
+    public void missingOrUnreadableFilesAreIgnored() throws IOException {
+        Path file = directory.resolve("legacy.bin");
+        LegacyScanResultCache tested = new LegacyScanResultCache(file);
+
+        assertThat(tested.load("abc").isPresent(), is(false));
+        Files.write(file, new byte[]{1, 2, 3});
+        assertThat(tested.load("abc").isPresent(), is(false));
+    }
+
+    @Test
+    public void fingerprintChangesWithClassPath() throws IOException {
+        Path packageDirectory = Files.createDirectories(directory.resolve("classes/example/changing"));
+        Files.write(packageDirectory.resolve("Changing.class"), new byte[]{1});
+        LegacyScanResultCache tested = new LegacyScanResultCache(directory.resolve("legacy.bin"));
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{directory.resolve("classes").toUri().toURL()}, null)) {
+            PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
+            String[] basePackages = {"example.changing"};
+            String before = tested.fingerprint(resolver, basePackages, "filter").orElseThrow(AssertionError::new);
+
+            assertThat(tested.fingerprint(resolver, basePackages, "filter"), is(Optional.of(before)));
+            Files.write(packageDirectory.resolve("Changing.class"), new byte[]{1, 2});
+            assertThat(tested.fingerprint(resolver, basePackages, "filter"), is(not(Optional.of(before))));
+        }
+    }
+
+    @Test
+    public void fingerprintChangesWithConfiguration() {
+        LegacyScanResultCache tested = new LegacyScanResultCache(directory.resolve("legacy.bin"));
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        String[] basePackages = {"example.legacy", "org.springframework.util.comparator"};
+
+        Optional<String> fields = tested.fingerprint(resolver, basePackages, configuration(
+                new LegacySingletonFieldFilter(MemberPredicates.anyConstant()), new AnnotationBeanNameGenerator()));
+        Optional<String> methods = tested.fingerprint(resolver, basePackages, configuration(
+                new LegacyBeanMethodFilter(SCOPE_SINGLETON, MemberPredicates.anyGetter()), new AnnotationBeanNameGenerator()));
+        Optional<String> otherNaming = tested.fingerprint(resolver, basePackages, configuration(
+                new LegacySingletonFieldFilter(MemberPredicates.anyConstant()), new DefaultBeanNameGenerator()));
+
+        assertThat(fields, is(not(methods)));
+        assertThat(fields, is(not(otherNaming)));
+        assertThat(tested.fingerprint(resolver, basePackages, configuration(
+                new LegacySingletonFieldFilter(MemberPredicates.anyConstant()), new AnnotationBeanNameGenerator())), is(fields));
+    }
+
+    @Test
+    public void fingerprintOfCustomChecksIsStable() {
+        LegacyScanResultCache tested = new LegacyScanResultCache(directory.resolve("legacy.bin"));
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        String[] basePackages = {"example.legacy"};
+
+        Optional<String> first = tested.fingerprint(resolver, basePackages, configuration(
+                new LegacyBeanMethodFilter(SCOPE_SINGLETON, method -> method.getName().startsWith("get")), new AnnotationBeanNameGenerator()));
+        Optional<String> second = tested.fingerprint(resolver, basePackages, configuration(
+                new LegacyBeanMethodFilter(SCOPE_SINGLETON, method -> method.getName().startsWith("get")), new AnnotationBeanNameGenerator()));
+
+        assertThat(first.isPresent(), is(true));
+        assertThat(second, is(first));
+    }
+
+    @Test
+    public void archivesNotInFilesHaveNoFingerprint() throws IOException {
+        LegacyScanResultCache tested = new LegacyScanResultCache(directory.resolve("legacy.bin"));
+        ResourcePatternResolver resolver = mock(ResourcePatternResolver.class);
+        when(resolver.getResources(anyString()))
+                .thenReturn(new Resource[]{new UrlResource("jar:http://localhost:1/missing.jar!/example/legacy/")});
+
+        assertThat(tested.fingerprint(resolver, new String[]{"example.legacy"}, "filter").isPresent(), is(false));
+    }
+
+    private static String configuration(CustomizingTypeFilter<?> filter, BeanNameGenerator beanNameGenerator) {
+        return LegacyBeanIndex.key(new String[]{"example.legacy"}, singletonList(filter), beanNameGenerator);
+    }
+}
@@ -0,0 +1,110 @@
+package diergo.spring.legacy;
+
+import static diergo.spring.legacy.LegacyBeanRegistryPostProcessorBuilder.legacyPackages;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+
+public class LegacyScanStateTest {
+
+    @TempDir
+    Path directory;
+
+    private final LegacyScanState tested = new LegacyScanState();
+    private final AtomicInteger evaluations = new AtomicInteger();
+    private Path classFile;
+
+    @Test
+    public void unchangedClassFilesAreNotEvaluatedAgain() throws IOException {
+        assertThat(isCandidate(tested.startScan()), is(true));
+        assertThat(isCandidate(tested.startScan()), is(true));
+
+        assertThat(evaluations.get(), is(1));
+    }
+
+    @Test
+    public void changedClassFilesAreEvaluatedAgain() throws IOException {
+        isCandidate(tested.startScan());
+        Files.write(classFile, new byte[]{1, 2, 3});
+
+        isCandidate(tested.startScan());
+
+        assertThat(evaluations.get(), is(2));
+    }
+
+    @Test
+    public void touchedClassFilesWithSameContentAreNotEvaluatedAgain() throws IOException {
+        isCandidate(tested.startScan());
+        Files.setLastModifiedTime(classFile, FileTime.fromMillis(Files.getLastModifiedTime(classFile).toMillis() + 2000));
+
+        isCandidate(tested.startScan());
+        isCandidate(tested.startScan());
+
+        assertThat(evaluations.get(), is(1));
+    }
+
+    @Test
+    public void classFilesNotSeenAreForgotten() throws IOException {
+        isCandidate(tested.startScan());
+        long scan = tested.startScan();
+
+        tested.endScan(scan);
+
+        assertThat(tested.size(), is(0));
+    }
+
+    @Test
+    public void stateIsSharedBySameConfiguration() {
+        LegacyScanState state = LegacyScanState.forScan("example.legacy | filter");
+
+        assertThat(LegacyScanState.forScan("example.legacy | filter"), is(sameInstance(state)));
+        assertThat(LegacyScanState.forScan("example.legacy | other"), is(not(sameInstance(state))));
+    }
+
+    @Test
+    public void stateIsSharedByCustomChecksCreatedAgain() {
+        LegacyScanState state = LegacyScanState.forScan(createProcessor().getIndexKey());
+
+        assertThat(LegacyScanState.forScan(createProcessor().getIndexKey()), is(sameInstance(state)));
+    }
+
+    @Test
+    public void statesNotScannedAnymoreAreForgotten() {
+        LegacyScanState state = LegacyScanState.forScan("example.legacy | forgotten");
+        for (int i = 0; i < 16; ++i) {
+            LegacyScanState.forScan("example.legacy | other " + i);
+        }
+
+        assertThat(LegacyScanState.forScan("example.legacy | forgotten"), is(not(sameInstance(state))));
+    }
+
+    @BeforeEach
+    void createClassFile() throws IOException {
+        classFile = Files.write(directory.resolve("Legacy.class"), new byte[]{1, 2});
+    }
+
+    private static LegacyBeanRegistryPostProcessor createProcessor() {
+        return (LegacyBeanRegistryPostProcessor) legacyPackages("example.legacy")
+                .singletonsFrom().methods(method -> method.getName().startsWith("get"))
+                .incrementalScanning()
+                .build();
+    }
+
+    private boolean isCandidate(long scan) throws IOException {
+        return tested.isCandidate(scan, new FileSystemResource(classFile.toFile()), () -> {
+            evaluations.incrementAndGet();
+            return true;
+        });
+    }
+}
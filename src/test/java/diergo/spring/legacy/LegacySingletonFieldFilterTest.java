@@ -54,6 +54,16 @@ public class LegacySingletonFieldFilterTest {
                 is(false));
     }
 
+    @Test
+    public void fieldsAreLookedUpByName() {
+        assertThat(matchTypeFilter(LegacySingletonByField.class,
+                new LegacySingletonFieldFilter(MemberPredicates.named("INSTANCE"))), is(true));
+        assertThat(matchTypeFilter(LegacySingletonByField.class,
+                new LegacySingletonFieldFilter(MemberPredicates.named("MISSING"))), is(false));
+        assertThat(new LegacySingletonFieldFilter(MemberPredicates.named("INSTANCE")).toString(),
+                is("singleton fields non private and static and with bean type and named INSTANCE"));
+    }
+
     @Test
     public void missingStaticFieldDoesNotMatch() {
         assertThat(matchTypeFilter(NonSingletonBean.class, new LegacySingletonFieldFilter(field -> true)),
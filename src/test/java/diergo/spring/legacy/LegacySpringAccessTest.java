@@ -1,20 +1,42 @@
 package diergo.spring.legacy;
 
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.FatalBeanException;
 import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanNotOfRequiredTypeException;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.ApplicationContextException;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.support.StaticApplicationContext;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class LegacySpringAccessTest {
 
-    private BeanFactory beanFactory;
+    private StaticApplicationContext context;
+    private DefaultListableBeanFactory beanFactory;
+    private LegacySpringAccess access;
 
     @Test
     public void springBeanCanBeRetrievedAsProxyBeforeApplicationContextAvailable() {
@@ -34,30 +56,492 @@ public class LegacySpringAccessTest {
     public void springBeanProxyCanBeUsedAfterApplicationContextAppeared() {
         TestBean actual = LegacySpringAccess.getSpringBean(TestBean.class);
 
-        new LegacySpringAccess().setBeanFactory(beanFactory);
+        access.setBeanFactory(beanFactory);
 
         actual.doIt();
     }
 
     @Test
     public void springBeanIsRetrievedFromApplicationContextIfAvailable() {
-        new LegacySpringAccess().setBeanFactory(beanFactory);
+        access.setBeanFactory(beanFactory);
 
         TestBean actual = LegacySpringAccess.getSpringBean(TestBean.class);
 
         assertThat(AopUtils.isAopProxy(actual), is(false));
     }
 
+    @Test
+    public void singletonSpringBeanIsCached() {
+        access.setBeanFactory(beanFactory);
+        TestBean expected = LegacySpringAccess.getSpringBean(TestBean.class);
+
+        beanFactory.destroySingletons();
+
+        assertThat(LegacySpringAccess.getSpringBean(TestBean.class), is(sameInstance(expected)));
+    }
+
+    @Test
+    public void cachedSingletonsAreDroppedOnRefresh() {
+        access.setBeanFactory(beanFactory);
+        TestBean cached = LegacySpringAccess.getSpringBean(TestBean.class);
+        beanFactory.destroySingletons();
+
+        access.onApplicationEvent(new ContextRefreshedEvent(context));
+
+        assertThat(LegacySpringAccess.getSpringBean(TestBean.class), is(not(sameInstance(cached))));
+    }
+
+    @Test
+    public void cachedSingletonsAreKeptOnRefreshOfChildContext() {
+        access.setBeanFactory(beanFactory);
+        TestBean cached = LegacySpringAccess.getSpringBean(TestBean.class);
+        beanFactory.destroySingletons();
+        StaticApplicationContext childContext = new StaticApplicationContext(context);
+
+        access.onApplicationEvent(new ContextRefreshedEvent(childContext));
+
+        assertThat(LegacySpringAccess.getSpringBean(TestBean.class), is(sameInstance(cached)));
+    }
+
+    @Test
+    public void prototypeSpringBeanIsNotCached() {
+        context.registerPrototype("otherBean", OtherBean.class);
+        access.setBeanFactory(beanFactory);
+
+        OtherBean first = LegacySpringAccess.getSpringBean(OtherBean.class);
+
+        assertThat(LegacySpringAccess.getSpringBean(OtherBean.class), is(not(sameInstance(first))));
+    }
+
+    @Test
+    public void springBeanProxyTargetIsCachedAsSingleton() {
+        TestBean proxy = LegacySpringAccess.getSpringBean(TestBean.class);
+        access.setBeanFactory(beanFactory);
+        proxy.doIt();
+        TestBean expected = beanFactory.getBean(TestBean.class);
+
+        beanFactory.destroySingletons();
+
+        assertThat(LegacySpringAccess.getSpringBean(TestBean.class), is(sameInstance(expected)));
+    }
+
+    @Test
+    public void springBeanProxyResolvesTargetOnceForConcurrentCalls() throws Exception {
+        context.registerPrototype("countingBean", CountingBean.class);
+        CountingBean proxy = LegacySpringAccess.getSpringBean(CountingBean.class);
+        access.setBeanFactory(beanFactory);
+        CountingBean.CREATED.set(0);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> calls = new ArrayList<>();
+            for (int i = 0; i < 8; ++i) {
+                calls.add(executor.submit(() -> {
+                    start.await();
+                    proxy.doIt();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> call : calls) {
+                call.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(CountingBean.CREATED.get(), is(1));
+    }
+
+    @Test
+    public void springBeanProxyIsSharedPerType() {
+        TestBean first = LegacySpringAccess.getSpringBean(TestBean.class);
+
+        assertThat(LegacySpringAccess.getSpringBean(TestBean.class), is(sameInstance(first)));
+    }
+
+    @Test
+    public void sharedSpringBeanProxiesAreDroppedOnDestroy() {
+        TestBean first = LegacySpringAccess.getSpringBean(TestBean.class);
+
+        access.destroy();
+
+        assertThat(LegacySpringAccess.getSpringBean(TestBean.class), is(not(sameInstance(first))));
+    }
+
+    @Test
+    public void springBeanProxiesOfChildClassLoadersAreDroppedOnDestroy() throws Exception {
+        Thread thread = Thread.currentThread();
+        ClassLoader classLoader = thread.getContextClassLoader();
+        try (URLClassLoader childClassLoader = new URLClassLoader(new URL[0], classLoader)) {
+            thread.setContextClassLoader(childClassLoader);
+            TestBean first = LegacySpringAccess.getSpringBean(TestBean.class);
+            access.setBeanFactory(beanFactory);
+            first.doIt();
+
+            access.destroy();
+
+            assertThat(LegacySpringAccess.getSpringBean(TestBean.class), is(not(sameInstance(first))));
+        } finally {
+            thread.setContextClassLoader(classLoader);
+        }
+    }
+
+    @Test
+    public void springBeanInterfaceCanBeRetrievedAsProxy() {
+        Runnable actual = LegacySpringAccess.getSpringBean(Runnable.class);
+
+        assertThat(AopUtils.isJdkDynamicProxy(actual), is(true));
+    }
+
+    @Test
+    public void springBeanIsRetrievedFromContextOfThreadContextClassLoader() throws Exception {
+        access.setBeanFactory(beanFactory);
+        StaticApplicationContext otherContext = new StaticApplicationContext();
+        otherContext.registerSingleton("testBean", TestBean.class);
+        LegacySpringAccess otherAccess = new LegacySpringAccess();
+        Thread thread = Thread.currentThread();
+        ClassLoader classLoader = thread.getContextClassLoader();
+        try (URLClassLoader otherClassLoader = new URLClassLoader(new URL[0], classLoader)) {
+            otherContext.getDefaultListableBeanFactory().setBeanClassLoader(otherClassLoader);
+            otherAccess.setBeanFactory(otherContext.getDefaultListableBeanFactory());
+            TestBean expected = otherContext.getBean(TestBean.class);
+
+            thread.setContextClassLoader(otherClassLoader);
+            assertThat(LegacySpringAccess.getSpringBean(TestBean.class), is(sameInstance(expected)));
+            thread.setContextClassLoader(classLoader);
+            assertThat(LegacySpringAccess.getSpringBean(TestBean.class), is(sameInstance(context.getBean(TestBean.class))));
+        } finally {
+            thread.setContextClassLoader(classLoader);
+            otherAccess.destroy();
+        }
+    }
+
+    @Test
+    public void contextOfClassLoaderIsKeptOnGarbageCollection() throws Exception {
+        access.setBeanFactory(beanFactory);
+        StaticApplicationContext otherContext = new StaticApplicationContext();
+        otherContext.registerSingleton("testBean", TestBean.class);
+        LegacySpringAccess otherAccess = new LegacySpringAccess();
+        Thread thread = Thread.currentThread();
+        ClassLoader classLoader = thread.getContextClassLoader();
+        try (URLClassLoader otherClassLoader = new URLClassLoader(new URL[0], classLoader)) {
+            otherContext.getDefaultListableBeanFactory().setBeanClassLoader(otherClassLoader);
+            otherAccess.setBeanFactory(otherContext.getDefaultListableBeanFactory());
+
+            System.gc();
+
+            thread.setContextClassLoader(otherClassLoader);
+            assertThat(LegacySpringAccess.getSpringBean(TestBean.class), is(sameInstance(otherContext.getBean(TestBean.class))));
+        } finally {
+            thread.setContextClassLoader(classLoader);
+            otherAccess.destroy();
+        }
+    }
+
+    @Test
+    public void springBeanIsRetrievedFromContextBoundToThread() {
+        access.setBeanFactory(beanFactory);
+        StaticApplicationContext otherContext = new StaticApplicationContext();
+        otherContext.registerSingleton("testBean", TestBean.class);
+
+        LegacySpringAccess.bindToThread(otherContext.getDefaultListableBeanFactory());
+        try {
+            assertThat(LegacySpringAccess.getSpringBean(TestBean.class), is(sameInstance(otherContext.getBean(TestBean.class))));
+        } finally {
+            LegacySpringAccess.unbindFromThread();
+        }
+        assertThat(LegacySpringAccess.getSpringBean(TestBean.class), is(sameInstance(context.getBean(TestBean.class))));
+    }
+
+    @Test
+    public void destroyedContextIsNotUsedByOtherClassLoaders() throws Exception {
+        access.setBeanFactory(beanFactory);
+        StaticApplicationContext otherContext = new StaticApplicationContext();
+        otherContext.registerSingleton("testBean", TestBean.class);
+        LegacySpringAccess otherAccess = new LegacySpringAccess();
+        Thread thread = Thread.currentThread();
+        ClassLoader classLoader = thread.getContextClassLoader();
+        try (URLClassLoader otherClassLoader = new URLClassLoader(new URL[0], classLoader)) {
+            otherContext.getDefaultListableBeanFactory().setBeanClassLoader(otherClassLoader);
+            otherAccess.setBeanFactory(otherContext.getDefaultListableBeanFactory());
+
+            access.destroy();
+
+            assertThat(AopUtils.isAopProxy(LegacySpringAccess.getSpringBean(TestBean.class)), is(true));
+            thread.setContextClassLoader(otherClassLoader);
+            assertThat(LegacySpringAccess.getSpringBean(TestBean.class), is(sameInstance(otherContext.getBean(TestBean.class))));
+        } finally {
+            thread.setContextClassLoader(classLoader);
+            otherAccess.destroy();
+        }
+    }
+
+    @Test
+    public void springBeanAsyncIsCompletedOnRefresh() {
+        CompletableFuture<TestBean> actual = LegacySpringAccess.getSpringBeanAsync(TestBean.class);
+        access.setBeanFactory(beanFactory);
+
+        assertThat(actual.isDone(), is(false));
+        access.onApplicationEvent(new ContextRefreshedEvent(context));
+
+        assertThat(actual.isDone(), is(true));
+        assertThat(actual.join(), is(sameInstance(context.getBean(TestBean.class))));
+    }
+
+    @Test
+    public void springBeanAsyncIsCompletedImmediatelyIfRefreshed() {
+        access.setBeanFactory(beanFactory);
+        access.onApplicationEvent(new ContextRefreshedEvent(context));
+
+        CompletableFuture<TestBean> actual = LegacySpringAccess.getSpringBeanAsync(TestBean.class);
+
+        assertThat(actual.isDone(), is(true));
+        assertThat(actual.join(), is(sameInstance(context.getBean(TestBean.class))));
+    }
+
+    @Test
+    public void springBeanAsyncFailsForMissingBean() {
+        access.setBeanFactory(beanFactory);
+        access.onApplicationEvent(new ContextRefreshedEvent(context));
+
+        CompletableFuture<OtherBean> actual = LegacySpringAccess.getSpringBeanAsync(OtherBean.class);
+
+        assertThat(actual.isCompletedExceptionally(), is(true));
+    }
+
+    @Test
+    public void readyCallbackIsCalledOnceWithBeanFactory() {
+        List<BeanFactory> called = new ArrayList<>();
+        LegacySpringAccess.onReady(called::add);
+        access.setBeanFactory(beanFactory);
+
+        access.onApplicationEvent(new ContextRefreshedEvent(context));
+        access.onApplicationEvent(new ContextRefreshedEvent(context));
+
+        assertThat(called, contains(sameInstance(beanFactory)));
+    }
+
+    @Test
+    public void readyCallbackIsDroppedIfDestroyedBeforeRefresh() {
+        List<BeanFactory> called = new ArrayList<>();
+        access.setBeanFactory(beanFactory);
+        LegacySpringAccess.onReady(called::add);
+        access.destroy();
+        StaticApplicationContext otherContext = new StaticApplicationContext();
+        LegacySpringAccess otherAccess = new LegacySpringAccess();
+        otherAccess.setBeanFactory(otherContext.getDefaultListableBeanFactory());
+        try {
+            otherAccess.onApplicationEvent(new ContextRefreshedEvent(otherContext));
+
+            assertThat(called, is(empty()));
+        } finally {
+            otherAccess.destroy();
+        }
+    }
+
+    @Test
+    public void springBeanAsyncFailsIfDestroyedBeforeRefresh() {
+        access.setBeanFactory(beanFactory);
+        CompletableFuture<TestBean> actual = LegacySpringAccess.getSpringBeanAsync(TestBean.class);
+
+        access.destroy();
+
+        assertThat(actual.isCompletedExceptionally(), is(true));
+    }
+
+    @Test
+    public void springBeanAsyncIsKeptOnGarbageCollection() {
+        CompletableFuture<TestBean> actual = LegacySpringAccess.getSpringBeanAsync(TestBean.class);
+        access.setBeanFactory(beanFactory);
+
+        System.gc();
+        access.onApplicationEvent(new ContextRefreshedEvent(context));
+
+        assertThat(actual.isDone(), is(true));
+        assertThat(actual.join(), is(sameInstance(context.getBean(TestBean.class))));
+    }
+
+    @Test
+    public void singletonSpringBeanIsCachedByName() {
+        access.setBeanFactory(beanFactory);
+        TestBean expected = LegacySpringAccess.getSpringBean("testBean", TestBean.class);
+
+        beanFactory.destroySingletons();
+
+        assertThat(LegacySpringAccess.getSpringBean("testBean", TestBean.class), is(sameInstance(expected)));
+        assertThrows(BeanNotOfRequiredTypeException.class, () -> LegacySpringAccess.getSpringBean("testBean", OtherBean.class));
+    }
+
+    @Test
+    public void springBeanByNameCannotBeRetrievedBeforeApplicationContextAvailable() {
+        assertThrows(ApplicationContextException.class, () -> LegacySpringAccess.getSpringBean("testBean", TestBean.class));
+    }
+
+    @Test
+    public void singletonSpringBeansOfTypeAreCachedUntilRefresh() {
+        context.registerSingleton("otherTestBean", TestBean.class);
+        access.setBeanFactory(beanFactory);
+        Map<String, TestBean> expected = LegacySpringAccess.getSpringBeansOfType(TestBean.class);
+
+        assertThat(expected.keySet(), contains("testBean", "otherTestBean"));
+        assertThat(LegacySpringAccess.getSpringBeansOfType(TestBean.class), is(sameInstance(expected)));
+        assertThrows(UnsupportedOperationException.class, expected::clear);
+        access.onApplicationEvent(new ContextRefreshedEvent(context));
+        assertThat(LegacySpringAccess.getSpringBeansOfType(TestBean.class), is(not(sameInstance(expected))));
+    }
+
+    @Test
+    public void springBeansOfTypeIncludingPrototypesAreNotCached() {
+        context.registerPrototype("otherBean", OtherBean.class);
+        access.setBeanFactory(beanFactory);
+
+        Map<String, OtherBean> first = LegacySpringAccess.getSpringBeansOfType(OtherBean.class);
+
+        assertThat(LegacySpringAccess.getSpringBeansOfType(OtherBean.class).get("otherBean"),
+                is(not(sameInstance(first.get("otherBean")))));
+    }
+
+    @Test
+    public void springBeansCanBeRetrievedAtOnce() {
+        context.registerSingleton("otherBean", OtherBean.class);
+        access.setBeanFactory(beanFactory);
+
+        Map<Class<?>, Object> actual = LegacySpringAccess.getSpringBeans(TestBean.class, OtherBean.class);
+
+        assertThat(actual.get(TestBean.class), is(sameInstance(context.getBean(TestBean.class))));
+        assertThat(actual.get(OtherBean.class), is(sameInstance(context.getBean(OtherBean.class))));
+        assertThat(LegacySpringAccess.getSpringBeans(TestBean.class).get(TestBean.class),
+                is(sameInstance(actual.get(TestBean.class))));
+    }
+
+    @Test
+    public void handleIsSharedPerType() {
+        assertThat(LegacySpringAccess.handle(TestBean.class), is(sameInstance(LegacySpringAccess.handle(TestBean.class))));
+    }
+
+    @Test
+    public void handleCannotBeUsedBeforeApplicationContextAvailable() {
+        LegacyBeanHandle<TestBean> handle = LegacySpringAccess.handle(TestBean.class);
+
+        assertThrows(ApplicationContextException.class, handle::get);
+    }
+
+    @Test
+    public void handlePinsSingletonOfRefreshedContext() {
+        LegacyBeanHandle<TestBean> handle = LegacySpringAccess.handle(TestBean.class);
+        access.setBeanFactory(beanFactory);
+        access.onApplicationEvent(new ContextRefreshedEvent(context));
+        TestBean expected = handle.get();
+
+        access.onApplicationEvent(new ContextRefreshedEvent(context));
+        assertThat(handle.get(), is(sameInstance(expected)));
+        beanFactory.destroySingletons();
+        assertThat(handle.get(), is(sameInstance(expected)));
+        access.onApplicationEvent(new ContextRefreshedEvent(context));
+        assertThat(handle.get(), is(not(sameInstance(expected))));
+    }
+
+    @Test
+    public void handleIsReleasedOnDestroy() {
+        LegacyBeanHandle<TestBean> handle = LegacySpringAccess.handle(TestBean.class);
+        access.setBeanFactory(beanFactory);
+        access.onApplicationEvent(new ContextRefreshedEvent(context));
+        handle.get();
+
+        access.destroy();
+
+        assertThrows(ApplicationContextException.class, handle::get);
+    }
+
+    @Test
+    public void handleIsKeptOnGarbageCollection() {
+        LegacyBeanHandle<TestBean> handle = LegacySpringAccess.handle(TestBean.class);
+        access.setBeanFactory(beanFactory);
+        access.onApplicationEvent(new ContextRefreshedEvent(context));
+        TestBean expected = handle.get();
+
+        System.gc();
+        beanFactory.destroySingletons();
+        access.onApplicationEvent(new ContextRefreshedEvent(context));
+
+        assertThat(LegacySpringAccess.handle(TestBean.class), is(sameInstance(handle)));
+        assertThat(handle.get(), is(not(sameInstance(expected))));
+    }
+
+    @Test
+    public void handleDoesNotPinSingletonResolvedWhileRefreshing() {
+        context.registerSingleton("refreshingBean", RefreshingBean.class);
+        LegacyBeanHandle<RefreshingBean> handle = LegacySpringAccess.handle(RefreshingBean.class);
+        access.setBeanFactory(beanFactory);
+        access.onApplicationEvent(new ContextRefreshedEvent(context));
+        RefreshingBean.CREATED.set(() -> access.onApplicationEvent(new ContextRefreshedEvent(context)));
+        try {
+            RefreshingBean resolved = handle.get();
+
+            beanFactory.destroySingletons();
+            RefreshingBean.CREATED.set(() -> { });
+            assertThat(handle.get(), is(not(sameInstance(resolved))));
+        } finally {
+            RefreshingBean.CREATED.set(() -> { });
+        }
+    }
+
+    @Test
+    public void handlesOfClassLoadersUsingContextAreRemovedOnDestroy() throws Exception {
+        access.setBeanFactory(beanFactory);
+        Thread thread = Thread.currentThread();
+        ClassLoader classLoader = thread.getContextClassLoader();
+        try (URLClassLoader childClassLoader = new URLClassLoader(new URL[0], classLoader)) {
+            thread.setContextClassLoader(childClassLoader);
+            LegacySpringAccess.handle(TestBean.class);
+            thread.setContextClassLoader(classLoader);
+
+            access.destroy();
+
+            assertThat(LegacySpringAccess.hasHandles(childClassLoader), is(false));
+        } finally {
+            thread.setContextClassLoader(classLoader);
+        }
+    }
+
+    @Test
+    public void handleKeptAfterDestroyIsReleasedByNextContext() {
+        LegacyBeanHandle<TestBean> handle = LegacySpringAccess.handle(TestBean.class);
+        access.setBeanFactory(beanFactory);
+        access.destroy();
+        access = new LegacySpringAccess();
+        access.setBeanFactory(beanFactory);
+        access.onApplicationEvent(new ContextRefreshedEvent(context));
+        TestBean expected = handle.get();
+
+        beanFactory.destroySingletons();
+        access.onApplicationEvent(new ContextRefreshedEvent(context));
+
+        assertThat(handle.get(), is(not(sameInstance(expected))));
+    }
+
+    @Test
+    public void handleRetrievesPrototypesFromContext() {
+        context.registerPrototype("otherBean", OtherBean.class);
+        LegacyBeanHandle<OtherBean> handle = LegacySpringAccess.handle(OtherBean.class);
+        access.setBeanFactory(beanFactory);
+        access.onApplicationEvent(new ContextRefreshedEvent(context));
+
+        assertThat(handle.get(), is(not(sameInstance(handle.get()))));
+    }
+
     @BeforeEach
     void createSpringContextWithTestBean() {
-        StaticApplicationContext inner = new StaticApplicationContext();
-        inner.registerSingleton("testBean", TestBean.class);
-        beanFactory = inner.getBeanFactory();
+        context = new StaticApplicationContext();
+        context.registerSingleton("testBean", TestBean.class);
+        beanFactory = context.getDefaultListableBeanFactory();
+        access = new LegacySpringAccess();
     }
 
     @AfterEach
     void cleanupContext() {
-        new LegacySpringAccess().destroy();
+        access.destroy();
     }
 
     static class TestBean {
@@ -65,4 +549,28 @@ public class LegacySpringAccessTest {
         public void doIt() {
         }
     }
+
+    static class OtherBean {
+    }
+
+    static class RefreshingBean {
+
+        static final AtomicReference<Runnable> CREATED = new AtomicReference<>(() -> { });
+
+        RefreshingBean() {
+            CREATED.get().run();
+        }
+    }
+
+    static class CountingBean {
+
+        static final AtomicInteger CREATED = new AtomicInteger();
+
+        CountingBean() {
+            CREATED.incrementAndGet();
+        }
+
+        public void doIt() {
+        }
+    }
 }
@@ -0,0 +1,177 @@
+package diergo.spring.legacy;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import static diergo.spring.legacy.MemberPredicates.all;
+import static diergo.spring.legacy.MemberPredicates.anyConstant;
+import static diergo.spring.legacy.MemberPredicates.anyGetter;
+import static diergo.spring.legacy.MemberPredicates.atClass;
+import static diergo.spring.legacy.MemberPredicates.atInstance;
+import static diergo.spring.legacy.MemberPredicates.isCustom;
+import static diergo.spring.legacy.MemberPredicates.named;
+import static diergo.spring.legacy.MemberPredicates.names;
+import static diergo.spring.legacy.MemberPredicates.noObjectMethod;
+import static diergo.spring.legacy.MemberPredicates.returning;
+import static diergo.spring.legacy.MemberPredicates.returningBeanType;
+import static diergo.spring.legacy.MemberPredicates.signatureCheck;
+import static diergo.spring.legacy.MemberPredicates.visible;
+import static diergo.spring.legacy.MemberPredicates.withBeanType;
+import static diergo.spring.legacy.MemberPredicates.withType;
+import static diergo.spring.legacy.MemberPredicates.withoutParameters;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class MemberPredicatesTest {
+
+    @Test
+    public void membersAndSignaturesAreCheckedAlike() throws Exception {
+        Method getInstance = Example.class.getDeclaredMethod("getInstance");
+        Method create = Example.class.getDeclaredMethod("create", String.class);
+        Field instance = Example.class.getDeclaredField("INSTANCE");
+        Map<String, LegacyMemberSignature> signatures = readExample();
+
+        assertBoth(atClass(), getInstance, signatures, true);
+        assertBoth(atInstance(), create, signatures, true);
+        assertBoth(visible(), getInstance, signatures, true);
+        assertBoth(visible(), instance, signatures, false);
+        assertBoth(named("getInstance", "other"), getInstance, signatures, true);
+        assertBoth(anyGetter(), create, signatures, false);
+        assertBoth(anyConstant(), instance, signatures, true);
+        assertBoth(withoutParameters(), create, signatures, false);
+        assertBoth(returningBeanType(), getInstance, signatures, true);
+        assertBoth(withBeanType(), instance, signatures, true);
+        assertBoth(noObjectMethod(), create, signatures, true);
+        assertBoth(all(), instance, signatures, true);
+    }
+
+    @Test
+    public void composedChecksAreCheckedAlike() throws Exception {
+        Method getInstance = Example.class.getDeclaredMethod("getInstance");
+        Method create = Example.class.getDeclaredMethod("create", String.class);
+        Map<String, LegacyMemberSignature> signatures = readExample();
+
+        assertBoth(MemberPredicates.<Method>atClass().and(withoutParameters()), getInstance, signatures, true);
+        assertBoth(MemberPredicates.<Method>atClass().and(withoutParameters()), create, signatures, false);
+        assertBoth(MemberPredicates.<Method>atClass().or(withoutParameters()), create, signatures, false);
+        assertBoth(MemberPredicates.<Method>atClass().negate(), create, signatures, true);
+    }
+
+    @Test
+    public void otherChecksAllowAnySignature() throws Exception {
+        LegacyMemberSignature create = readExample().get("method create");
+
+        assertThat(signatureCheck(method -> false).test(create), is(true));
+        assertThat(signatureCheck(returning(String.class)).test(create), is(true));
+        assertThat(signatureCheck(withType(String.class)).test(create), is(true));
+        assertThat(signatureCheck(MemberPredicates.<Method>visible().and(method -> false)).test(create), is(true));
+        assertThat(signatureCheck(MemberPredicates.<Method>atClass().and(method -> false).negate()).test(create), is(true));
+        assertThat(signatureCheck(MemberPredicates.<Method>atClass().and(method -> true)).test(create), is(false));
+    }
+
+    @Test
+    public void checksDescribeThemselves() {
+        assertThat(MemberPredicates.<Method>visible().and(atClass()).and(named("getInstance")).toString(),
+                is("non private and static and named getInstance"));
+        assertThat(MemberPredicates.<Method>atInstance().or(method -> true).toString(), is("(non static or custom)"));
+        assertThat(anyGetter().negate().toString(), is("not (named like get[A-Z].+)"));
+        assertThat(returning(String.class).toString(), is("returning java.lang.String"));
+    }
+
+    @Test
+    public void customChecksAreDetected() {
+        assertThat(isCustom(MemberPredicates.<Method>visible().and(atClass()).and(named("getInstance"))), is(false));
+        assertThat(isCustom(anyGetter().negate()), is(false));
+        assertThat(isCustom(method -> true), is(true));
+        assertThat(isCustom(MemberPredicates.<Method>visible().and(method -> true)), is(true));
+        assertThat(isCustom(MemberPredicates.<Method>atInstance().or(method -> true)), is(true));
+        assertThat(isCustom(MemberPredicates.<Method>atInstance().and(method -> true).negate()), is(true));
+    }
+
+    @Test
+    public void namesAllowedAreAvailable() {
+        assertThat(names(named("a", "b")), is(Optional.of(new HashSet<>(asList("a", "b")))));
+        assertThat(names(MemberPredicates.<Method>named("a", "b").and(atClass()).and(named("b", "c"))),
+                is(Optional.of(singleton("b"))));
+        assertThat(names(MemberPredicates.<Method>named("a").or(named("b"))), is(Optional.of(new HashSet<>(asList("a", "b")))));
+        assertThat(names(MemberPredicates.<Method>named("a").or(anyGetter())).isPresent(), is(false));
+        assertThat(names(MemberPredicates.<Method>named("a").negate()).isPresent(), is(false));
+        assertThat(names(method -> true).isPresent(), is(false));
+    }
+
+    @Test
+    public void nameChecksMatchTheirPatterns() throws Exception {
+        Pattern getters = Pattern.compile("get[A-Z].+");
+        Pattern constants = Pattern.compile("[A-Z][A-Z0-9_]+");
+        for (String name : asList("get", "getX", "getXy", "getxY", "gotXy", "X", "XY", "X_1", "Xy", "_X", "INSTANCE")) {
+            assertThat(name, checkName(anyGetter(), name), is(getters.matcher(name).matches()));
+            assertThat(name, checkName(anyConstant(), name), is(constants.matcher(name).matches()));
+        }
+    }
+
+    @Test
+    public void cheapChecksAreDoneFirst() throws Exception {
+        Method create = Example.class.getDeclaredMethod("create", String.class);
+        AtomicInteger called = new AtomicInteger();
+        Predicate<Method> check = MemberPredicates.<Method>visible()
+                .and(method -> called.incrementAndGet() > 0)
+                .and(anyGetter())
+                .and(atClass());
+
+        assertThat(check.test(create), is(false));
+        assertThat(called.get(), is(0));
+        assertThat(((MemberPredicates.MemberCheck<Method>) check).getKind(), is(MemberPredicates.Kind.ALL_OF));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean checkName(Predicate<? extends Member> check, String name) {
+        Member member = Mockito.mock(Member.class);
+        Mockito.when(member.getName()).thenReturn(name);
+        return ((Predicate<Member>) check).test(member);
+    }
+
+    private static <T extends Member> void assertBoth(Predicate<? super T> check, T member,
+                                                      Map<String, LegacyMemberSignature> signatures, boolean expected) {
+        String key = (member instanceof Field ? "field " : "method ") + member.getName();
+        assertThat(check.test(member), is(expected));
+        assertThat(signatureCheck(check).test(signatures.get(key)), is(expected));
+    }
+
+    private static Map<String, LegacyMemberSignature> readExample() throws IOException {
+        return LegacyMemberSignature.read(new ClassPathResource(Example.class.getName().replace('.', '/') + ".class"))
+                .stream().collect(toMap(LegacyMemberSignature::toString, identity()));
+    }
+
+    @SuppressWarnings("unused")
+    static class Example {
+
+        private static final Example INSTANCE = new Example();
+
+        private Example() {
+        }
+
+        public static Example getInstance() {
+            return INSTANCE;
+        }
+
+        Example create(String name) {
+            return new Example();
+        }
+    }
+}
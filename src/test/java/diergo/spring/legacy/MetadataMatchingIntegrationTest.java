@@ -0,0 +1,11 @@
+package diergo.spring.legacy;
+
+import example.metadata.MetadataMatchingSpringConfig;
+
+public class MetadataMatchingIntegrationTest extends ExampleIntegrationTest {
+
+    @Override
+    Class<?> configuration() {
+        return MetadataMatchingSpringConfig.class;
+    }
+}
@@ -0,0 +1,14 @@
+package diergo.spring.legacy;
+
+class SubtypeSingletonBean {
+
+    private static final Impl INSTANCE = new Impl();
+
+    // static getter of a subtype is a singleton
+    public static Impl getInstance() {
+        return INSTANCE;
+    }
+
+    static class Impl extends SubtypeSingletonBean {
+    }
+}
@@ -1,23 +1,31 @@
 package diergo.spring.legacy;
 
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.core.type.ClassMetadata;
 import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
 
 public class TestMetadataReader implements MetadataReader {
 
     private final AnnotationMetadata metadata;
+    private final Resource resource;
 
     public TestMetadataReader(Class<?> type) {
+        this(type, new ClassPathResource(ClassUtils.convertClassNameToResourcePath(type.getName()) + ".class"));
+    }
+
+    public TestMetadataReader(Class<?> type, @Nullable Resource resource) {
         this.metadata = AnnotationMetadata.introspect(type);
+        this.resource = resource;
     }
 
     @Override
     @Nullable
     public Resource getResource() {
-        return null;
+        return resource;
     }
 
     @Override
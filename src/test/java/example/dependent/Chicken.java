@@ -0,0 +1,20 @@
+package example.dependent;
+
+public class Chicken {
+
+    public static final Chicken INSTANCE = new Chicken();
+
+    private final boolean laying;
+
+    private Chicken() {
+        laying = Egg.isLaid();
+    }
+
+    public boolean isLaying() {
+        return laying;
+    }
+
+    static Chicken hatch() {
+        return INSTANCE;
+    }
+}
@@ -0,0 +1,7 @@
+package example.dependent;
+
+public class Configuration {
+
+    public static final Configuration INSTANCE = new Configuration();
+
+}
@@ -0,0 +1,20 @@
+package example.dependent;
+
+public class Egg {
+
+    public static final Egg INSTANCE = new Egg();
+
+    private final Chicken mother;
+
+    private Egg() {
+        mother = Chicken.hatch();
+    }
+
+    static boolean isLaid() {
+        return true;
+    }
+
+    public Chicken getMother() {
+        return mother;
+    }
+}
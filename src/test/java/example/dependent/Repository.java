@@ -0,0 +1,27 @@
+package example.dependent;
+
+public class Repository {
+
+    private static Repository instance;
+
+    private final Service service;
+
+    private Repository(Service service) {
+        this.service = service;
+    }
+
+    public static synchronized Repository getInstance() {
+        if (instance == null) {
+            instance = create();
+        }
+        return instance;
+    }
+
+    private static Repository create() {
+        return new Repository(Service.INSTANCE);
+    }
+
+    public Service getService() {
+        return service;
+    }
+}
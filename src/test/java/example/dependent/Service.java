@@ -0,0 +1,16 @@
+package example.dependent;
+
+public class Service {
+
+    public static final Service INSTANCE = new Service();
+
+    private final Configuration configuration;
+
+    private Service() {
+        configuration = Configuration.INSTANCE;
+    }
+
+    public Configuration getConfiguration() {
+        return configuration;
+    }
+}
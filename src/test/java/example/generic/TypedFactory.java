@@ -0,0 +1,13 @@
+package example.generic;
+
+public class TypedFactory<T> {
+
+    private static final TypedFactory<Integer> instance = new TypedFactory<>();
+
+    private TypedFactory() {
+    }
+
+    public static TypedFactory<Integer> getInstance() {
+        return instance;
+    }
+}
@@ -0,0 +1,10 @@
+package example.generic;
+
+public class TypedRegistry<T> {
+
+    public static final TypedRegistry<String> INSTANCE = new TypedRegistry<>();
+
+    private TypedRegistry() {
+    }
+
+}
@@ -0,0 +1,30 @@
+package example.metadata;
+
+import static diergo.spring.legacy.LegacyBeanRegistryPostProcessorBuilder.legacyPackages;
+import static diergo.spring.legacy.MemberPredicates.named;
+
+import diergo.spring.legacy.LegacySpringAccess;
+import example.legacy.LegacyFactoryBean;
+import example.spring.IndependentSpringBean;
+import example.spring.SpringBeanInjectedLegacy;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+@Configuration
+@Import({LegacySpringAccess.class, IndependentSpringBean.class, SpringBeanInjectedLegacy.class})
+public class MetadataMatchingSpringConfig {
+
+    @Bean
+    static BeanDefinitionRegistryPostProcessor legacySingletons() {
+        return legacyPackages("example")
+                .metadataMatching()
+                .singletonsFrom().fields(named("INSTANCE"))
+                .singletonsFrom().methods(named("getInstance"))
+                .prototypesFrom().methods(method -> method.getName().startsWith("create"))
+                .factory(LegacyFactoryBean.class).singletons(method -> method.getName().startsWith("get"))
+                .factory(LegacyFactoryBean.class).prototypes(method -> method.getName().startsWith("create"))
+                .build();
+    }
+}
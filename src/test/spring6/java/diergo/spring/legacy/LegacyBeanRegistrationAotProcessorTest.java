@@ -0,0 +1,98 @@
+package diergo.spring.legacy;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import example.legacy.CreatedPrototype;
+import example.legacy.CreatedSingleton;
+import example.legacy.LegacyPrototypeByStaticMethod;
+import example.legacy.LegacySingletonByField;
+import example.legacy.LegacySingletonByMethod;
+import example.spring.SpringConfig;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.aot.test.generate.TestGenerationContext;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.aot.ApplicationContextAotGenerator;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.test.tools.CompileWithForkedClassLoader;
+import org.springframework.core.test.tools.TestCompiler;
+import org.springframework.javapoet.ClassName;
+
+@CompileWithForkedClassLoader
+public class LegacyBeanRegistrationAotProcessorTest {
+
+    @Test
+    public void legacySingletonsAreRegisteredWithoutScanning() {
+        processAndRun(config(), context -> {
+            assertThat(context.getBean(LegacySingletonByField.class), is(sameInstance(LegacySingletonByField.INSTANCE)));
+            assertThat(context.getBean(LegacySingletonByMethod.class), is(sameInstance(LegacySingletonByMethod.getInstance())));
+            assertThat(context.containsBeanDefinition("legacySingletons"), is(false));
+        });
+    }
+
+    @Test
+    public void legacyPrototypesAreRegistered() {
+        processAndRun(config(), context -> assertThat(context.getBean(LegacyPrototypeByStaticMethod.class),
+                is(not(sameInstance(context.getBean(LegacyPrototypeByStaticMethod.class))))));
+    }
+
+    @Test
+    public void legacyFactoryBeansAreRegistered() {
+        processAndRun(config(), context -> {
+            assertThat(context.getBean(CreatedSingleton.class), is(sameInstance(context.getBean(CreatedSingleton.class))));
+            assertThat(context.getBean(CreatedPrototype.class), is(not(sameInstance(context.getBean(CreatedPrototype.class)))));
+        });
+    }
+
+    @Test
+    public void inaccessibleFieldsAreReadReflectively() {
+        GenericApplicationContext applicationContext = new GenericApplicationContext();
+        RootBeanDefinition bd = new RootBeanDefinition(PrivateSingleton.class);
+        LegacySingletonFieldFilter.customizeBeanDefinition(bd, "INSTANCE");
+        applicationContext.registerBeanDefinition("privateSingleton", bd);
+
+        TestGenerationContext generationContext = processAndRun(applicationContext,
+                context -> assertThat(context.getBean(PrivateSingleton.class), is(sameInstance(PrivateSingleton.INSTANCE))));
+
+        assertThat(RuntimeHintsPredicates.reflection().onField(PrivateSingleton.class, "INSTANCE")
+                .test(generationContext.getRuntimeHints()), is(true));
+    }
+
+    private static AnnotationConfigApplicationContext config() {
+        AnnotationConfigApplicationContext applicationContext = new AnnotationConfigApplicationContext();
+        applicationContext.register(SpringConfig.class);
+        return applicationContext;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static TestGenerationContext processAndRun(GenericApplicationContext applicationContext,
+                                                       Consumer<GenericApplicationContext> check) {
+        TestGenerationContext generationContext = new TestGenerationContext();
+        ClassName initializerName = new ApplicationContextAotGenerator()
+                .processAheadOfTime(applicationContext, generationContext);
+        generationContext.writeGeneratedContent();
+        TestCompiler.forSystem().with(generationContext).compile(compiled -> {
+            try (GenericApplicationContext context = new GenericApplicationContext()) {
+                compiled.getInstance(ApplicationContextInitializer.class, initializerName.toString())
+                        .initialize(context);
+                context.refresh();
+                check.accept(context);
+            }
+        });
+        return generationContext;
+    }
+
+    static class PrivateSingleton {
+
+        private static final PrivateSingleton INSTANCE = new PrivateSingleton();
+
+        private PrivateSingleton() {
+        }
+    }
+}